@@ -0,0 +1,96 @@
+package com.yourmod.playeractionlogger.log;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The writer's per-event work: rendering a line and turning it into UTF-8
+ * bytes. {@code formatted} is the renderer as it was before, with
+ * SimpleDateFormat, String.format and String.getBytes; {@code encoded} is
+ * {@link LogRenderer#encode}. Run with -prof gc (the default here) to
+ * compare the bytes allocated per event.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogRendererBenchmark {
+    // The mix a mining session writes: mostly blocks, some damage and vital stats
+    private final LogEvent[] events = new LogEvent[64];
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss");
+    private LogRenderer renderer;
+    private int next = 0;
+    
+    @Setup
+    public void setup() {
+        renderer = new LogRenderer();
+        Map<String, Integer> blocks = new LinkedHashMap<>();
+        blocks.put("Stone", 214);
+        blocks.put("Deepslate", 87);
+        blocks.put("Iron Ore", 6);
+        for (int i = 0; i < events.length; i++) {
+            switch (i % 8) {
+                case 0 -> events[i] = LogEvent.damage(LogEventType.DAMAGE_TAKEN, "Steve", "Zombie", 2.5f + i);
+                case 1 -> events[i] = LogEvent.vitalStats("Steve", 17.5f, 20, 18, 300, 300, 104.3 + i, -38.0, 220.7);
+                case 2 -> events[i] = LogEvent.craft("Steve", "Torch", 4);
+                case 3 -> events[i] = LogEvent.miningSummary("Steve", blocks, 61000, true);
+                default -> events[i] = LogEvent.block(LogEventType.BLOCK_BREAK, "Steve", "Stone", 100 + i, -40, 220);
+            }
+        }
+    }
+    
+    private LogEvent nextEvent() {
+        LogEvent event = events[next];
+        next = (next + 1) & (events.length - 1);
+        return event;
+    }
+    
+    @Benchmark
+    public int encoded(Blackhole blackhole) {
+        int length = renderer.encode(nextEvent());
+        blackhole.consume(renderer.getBytes());
+        return length;
+    }
+    
+    @Benchmark
+    public byte[] formatted() {
+        LogEvent event = nextEvent();
+        String line = "[" + timeFormat.format(new Date(event.time)) + "] " + formatBody(event) + "\n";
+        return line.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    // The previous renderBody, for the event types above
+    private static String formatBody(LogEvent event) {
+        switch (event.type) {
+            case BLOCK_BREAK:
+                return "Broke " + event.name + " at "
+                    + LogEvent.unpackX(event.pos) + "," + LogEvent.unpackY(event.pos) + "," + LogEvent.unpackZ(event.pos);
+            case DAMAGE_TAKEN:
+                return String.format("Took %.1f damage from %s", event.amount, event.name);
+            case CRAFT:
+                return String.format("Crafted %dx %s", event.count, event.name);
+            case VITAL_STATS:
+                return String.format(
+                    "Vital Stats - Health: %.1f/%.1f | Hunger: %d/20 | Air: %d/%d | Pos: %.1f, %.1f, %.1f",
+                    event.health, event.maxHealth, event.hunger, event.air, event.maxAir,
+                    event.x, event.y, event.z);
+            case MINING_SUMMARY:
+                StringBuilder sb = new StringBuilder();
+                sb.append("Mining update (").append(event.duration / 1000).append("s): ");
+                event.blocks.forEach((block, count) -> sb.append(block).append(" x").append(count).append(", "));
+                sb.setLength(sb.length() - 2);
+                return sb.toString();
+            default:
+                return event.type.name();
+        }
+    }
+}
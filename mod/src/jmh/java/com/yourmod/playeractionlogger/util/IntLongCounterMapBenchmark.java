@@ -0,0 +1,67 @@
+package com.yourmod.playeractionlogger.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counting by symbol, as the trackers do on every block and item event:
+ * {@link IntLongCounterMap} against the boxed HashMap it replaced, both
+ * with getOrDefault + put and with merge. The keys are symbols of a few
+ * hundred distinct blocks, drawn at random.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntLongCounterMapBenchmark {
+    @Param({"300"})
+    public int distinctKeys;
+    
+    private final int[] keys = new int[4096];
+    private IntLongCounterMap counters;
+    private Map<Integer, Integer> getOrDefault;
+    private Map<Integer, Integer> merge;
+    private int next = 0;
+    
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextInt(distinctKeys);
+        }
+        counters = new IntLongCounterMap();
+        getOrDefault = new HashMap<>();
+        merge = new HashMap<>();
+    }
+    
+    private int nextKey() {
+        int key = keys[next];
+        next = (next + 1) & (keys.length - 1);
+        return key;
+    }
+    
+    @Benchmark
+    public IntLongCounterMap counterMap() {
+        counters.increment(nextKey());
+        return counters;
+    }
+    
+    @Benchmark
+    public Map<Integer, Integer> hashMapGetOrDefault() {
+        int key = nextKey();
+        getOrDefault.put(key, getOrDefault.getOrDefault(key, 0) + 1);
+        return getOrDefault;
+    }
+    
+    @Benchmark
+    public Map<Integer, Integer> hashMapMerge() {
+        merge.merge(nextKey(), 1, Integer::sum);
+        return merge;
+    }
+}
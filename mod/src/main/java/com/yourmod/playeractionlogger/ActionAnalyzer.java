@@ -2,6 +2,7 @@ package com.yourmod.playeractionlogger;
 
 import net.minecraft.block.BlockState;
 import net.minecraft.entity.Entity;
+import net.minecraft.entity.damage.DamageSource;
 import net.minecraft.entity.passive.AnimalEntity;
 import net.minecraft.entity.passive.SheepEntity;
 import net.minecraft.entity.passive.CowEntity;
@@ -10,70 +11,59 @@ import net.minecraft.entity.passive.ChickenEntity;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
 import net.minecraft.server.network.ServerPlayerEntity;
-import net.minecraft.util.Hand;
 import net.minecraft.util.math.BlockPos;
+import com.yourmod.playeractionlogger.rules.RuleContext;
+import com.yourmod.playeractionlogger.rules.RuleEngine;
+import com.yourmod.playeractionlogger.rules.RuleEventType;
 
 import java.util.*;
 
 public class ActionAnalyzer {
-    private final Map<String, ActionPattern> playerPatterns;
+    // Pattern histories of each player's rules
+    private final Map<String, RuleEngine.PlayerState> playerStates;
+    private final LogManager logManager;
+    private final SymbolTable symbols;
+    private final RuleEngine rules;
+    // Refilled for every event, everything runs on the client thread
+    private final RuleContext context = new RuleContext();
     
-    public ActionAnalyzer() {
-        this.playerPatterns = new HashMap<>();
+    public ActionAnalyzer(LogManager logManager, SymbolTable symbols, RuleEngine rules) {
+        this.playerStates = new HashMap<>();
+        this.logManager = logManager;
+        this.symbols = symbols;
+        this.rules = rules;
     }
     
-    public void analyzeBlockBreak(ServerPlayerEntity player, BlockPos pos, BlockState state, PlayerTracker tracker) {
-        String playerName = player.getName().getString();
-        ActionPattern pattern = getOrCreatePattern(playerName);
-        
-        // Check if mining
-        if (pos.getY() < 40) {
-            pattern.incrementMiningActivity();
-            
-            // Check for strip mining pattern
-            if (pattern.isStripMining(pos)) {
-                PlayerActionLogger.getLogManager().logRegularEvent(player,
-                    "Strip mining detected at Y=" + pos.getY());
-            }
-        }
-        
-        // Check for ore discovery
-        String blockName = state.getBlock().getName().getString();
-        if (isValuableOre(blockName)) {
-            PlayerActionLogger.getLogManager().logImportantEvent(player,
-                String.format("Found valuable ore: %s at %d,%d,%d", 
-                    blockName, pos.getX(), pos.getY(), pos.getZ()));
-        }
+    public void analyzeBlockBreak(ServerPlayerEntity player, BlockPos pos, BlockState state, long time,
+                                  PlayerTracker tracker) {
+        // Mining, strip mining and ore detections are rules now, see rules.json
+        context.set(RuleEventType.BLOCK_BREAK, player, time)
+            .at(pos.getX(), pos.getY(), pos.getZ())
+            .block = symbols.block(state.getBlock());
+        evaluate(player);
     }
     
-    public void analyzeBlockPlace(ServerPlayerEntity player, BlockPos pos, PlayerTracker tracker) {
-        String playerName = player.getName().getString();
-        ActionPattern pattern = getOrCreatePattern(playerName);
-        
-        pattern.addPlacedBlock(pos);
-        
-        // Check for building patterns
-        if (pattern.isBuildingPattern()) {
-            if (!pattern.wasRecentlyBuilding()) {
-                PlayerActionLogger.getLogManager().logRegularEvent(player,
-                    "Started building activity");
-            }
-            pattern.setRecentlyBuilding(true);
-        } else {
-            pattern.setRecentlyBuilding(false);
-        }
+    public void analyzeBlockPlace(ServerPlayerEntity player, BlockPos pos, long time, PlayerTracker tracker) {
+        context.set(RuleEventType.BLOCK_PLACE, player, time)
+            .at(pos.getX(), pos.getY(), pos.getZ());
+        evaluate(player);
     }
     
-    public void analyzeEntityInteraction(ServerPlayerEntity player, Entity entity, Hand hand, PlayerTracker tracker) {
-        ItemStack heldItem = player.getStackInHand(hand);
+    public void analyzeEntityInteraction(ServerPlayerEntity player, Entity entity, ItemStack heldItem, long time,
+                                         PlayerTracker tracker) {
+        RuleContext interaction = context.set(RuleEventType.ENTITY_INTERACT, player, time)
+            .at(entity.getBlockX(), entity.getBlockY(), entity.getBlockZ());
+        interaction.entity = symbols.entity(entity.getType());
+        interaction.item = heldItem.isEmpty() ? -1 : symbols.item(heldItem.getItem());
+        evaluate(player);
         
         // Check for feeding animals
         if (entity instanceof AnimalEntity animal) {
             if (isAnimalFood(animal, heldItem)) {
-                String animalType = entity.getType().getName().getString();
-                String food = heldItem.getName().getString();
+                String animalType = symbols.getName(symbols.entity(entity.getType()));
+                String food = symbols.getName(symbols.item(heldItem.getItem()));
                 
-                PlayerActionLogger.getLogManager().logImportantEvent(player,
+                logManager.logImportantEvent(player,
                     String.format("Feeding %s with %s", animalType, food));
                 
                 // Check if breeding
@@ -85,6 +75,38 @@ public class ActionAnalyzer {
         }
     }
     
+    // Only feed rules and sequences, nothing else is detected on these yet
+    public void analyzeDamageTaken(ServerPlayerEntity player, DamageSource source, float amount, float health,
+                                   long time) {
+        RuleContext damage = context.set(RuleEventType.DAMAGE_TAKEN, player, time)
+            .at(player.getBlockX(), player.getBlockY(), player.getBlockZ());
+        damage.amount = amount;
+        damage.health = health;
+        damage.source = source.getName();
+        evaluate(player);
+    }
+    
+    public void analyzeItemUsed(ServerPlayerEntity player, ItemStack stack, long time) {
+        RuleContext use = context.set(RuleEventType.ITEM_USED, player, time)
+            .at(player.getBlockX(), player.getBlockY(), player.getBlockZ());
+        use.item = stack.isEmpty() ? -1 : symbols.item(stack.getItem());
+        evaluate(player);
+    }
+    
+    public void analyzeItemCrafted(ServerPlayerEntity player, ItemStack result, long time) {
+        RuleContext craft = context.set(RuleEventType.ITEM_CRAFTED, player, time)
+            .at(player.getBlockX(), player.getBlockY(), player.getBlockZ());
+        craft.item = result.isEmpty() ? -1 : symbols.item(result.getItem());
+        evaluate(player);
+    }
+    
+    public void analyzeEntityKill(ServerPlayerEntity player, Entity entity, long time) {
+        RuleContext kill = context.set(RuleEventType.ENTITY_KILLED, player, time)
+            .at(entity.getBlockX(), entity.getBlockY(), entity.getBlockZ());
+        kill.entity = symbols.entity(entity.getType());
+        evaluate(player);
+    }
+    
     private boolean isAnimalFood(AnimalEntity animal, ItemStack item) {
         if (item.isEmpty()) return false;
         
@@ -100,80 +122,19 @@ public class ActionAnalyzer {
         return animal.isBreedingItem(item);
     }
     
-    private boolean isValuableOre(String blockName) {
-        String lower = blockName.toLowerCase();
-        return lower.contains("diamond") || lower.contains("emerald") || 
-               lower.contains("ancient_debris") || lower.contains("netherite");
-    }
-    
-    private ActionPattern getOrCreatePattern(String playerName) {
-        return playerPatterns.computeIfAbsent(playerName, k -> new ActionPattern());
+    private void evaluate(ServerPlayerEntity player) {
+        RuleEngine.PlayerState state = playerStates.computeIfAbsent(player.getName().getString(),
+            k -> rules.newPlayerState());
+        rules.evaluate(context, state, (rule, message, important) -> {
+            if (important) {
+                logManager.logImportantEvent(player, message);
+            } else {
+                logManager.logRegularEvent(player, message);
+            }
+        });
     }
     
-    // Inner class for tracking action patterns
-    private static class ActionPattern {
-        private final List<BlockPos> recentMining = new ArrayList<>();
-        private final List<BlockPos> recentBuilding = new ArrayList<>();
-        private int miningActivityLevel = 0;
-        private boolean recentlyBuilding = false;
-        private long lastMiningTime = 0;
-        private long lastBuildingTime = 0;
-        
-        public void incrementMiningActivity() {
-            miningActivityLevel++;
-            lastMiningTime = System.currentTimeMillis();
-        }
-        
-        public void addPlacedBlock(BlockPos pos) {
-            recentBuilding.add(pos);
-            if (recentBuilding.size() > 100) {
-                recentBuilding.remove(0);
-            }
-            lastBuildingTime = System.currentTimeMillis();
-        }
-        
-        public boolean isStripMining(BlockPos pos) {
-            recentMining.add(pos);
-            if (recentMining.size() > 20) {
-                recentMining.remove(0);
-            }
-            
-            // Check if mining in a straight line
-            if (recentMining.size() >= 10) {
-                return checkLinearPattern(recentMining);
-            }
-            return false;
-        }
-        
-        public boolean isBuildingPattern() {
-            // Check if placing blocks frequently
-            if (recentBuilding.size() < 5) return false;
-            
-            long currentTime = System.currentTimeMillis();
-            return (currentTime - lastBuildingTime) < 5000; // Within 5 seconds
-        }
-        
-        private boolean checkLinearPattern(List<BlockPos> positions) {
-            if (positions.size() < 3) return false;
-            
-            // Check if positions form a roughly linear pattern
-            BlockPos first = positions.get(0);
-            BlockPos last = positions.get(positions.size() - 1);
-            
-            int dx = Math.abs(last.getX() - first.getX());
-            int dz = Math.abs(last.getZ() - first.getZ());
-            int dy = Math.abs(last.getY() - first.getY());
-            
-            // Horizontal line check (strip mining is usually horizontal)
-            return dy <= 2 && (dx > 5 || dz > 5);
-        }
-        
-        public boolean wasRecentlyBuilding() {
-            return recentlyBuilding;
-        }
-        
-        public void setRecentlyBuilding(boolean building) {
-            this.recentlyBuilding = building;
-        }
+    public RuleEngine getRules() {
+        return rules;
     }
-}
\ No newline at end of file
+}
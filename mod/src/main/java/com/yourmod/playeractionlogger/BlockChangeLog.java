@@ -0,0 +1,65 @@
+package com.yourmod.playeractionlogger;
+
+import com.yourmod.playeractionlogger.util.LongRingBuffer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+/**
+ * The most recent block changes of the server worlds, numbered in order, so
+ * a cached result can tell whether anything changed near it since it was
+ * computed. Only positions are kept, not the world: a change in another
+ * dimension can invalidate a result for nothing, never keep a stale one.
+ *
+ * <p>Recorded on the server thread, read from the vision worker.
+ */
+public class BlockChangeLog {
+    // A block touches a segment when its centre is this close to it
+    private static final double BLOCK_REACH = 1.0;
+    
+    private final LongRingBuffer changes;
+    private long sequence = 0;
+    
+    public BlockChangeLog(int capacity) {
+        this.changes = new LongRingBuffer(capacity);
+    }
+    
+    public synchronized void record(BlockPos pos) {
+        // The sequence number stands in for the time, since() searches on it
+        changes.add(pos.asLong(), ++sequence);
+    }
+    
+    // Number of the last change, what changedNear() takes as "since"
+    public synchronized long getSequence() {
+        return sequence;
+    }
+    
+    /**
+     * Whether a block changed after change {@code since} close enough to the
+     * segment to alter a raycast along it. Answers yes when the changes since
+     * then have already been overwritten.
+     */
+    public synchronized boolean changedNear(long since, Vec3d from, Vec3d to) {
+        if (sequence == since) return false;
+        if (sequence - since > changes.capacity()) return true;
+        
+        LongRingBuffer.View recent = changes.since(since + 1);
+        for (int i = 0; i < recent.size(); i++) {
+            long pos = recent.get(i);
+            if (nearSegment(BlockPos.unpackLongX(pos) + 0.5, BlockPos.unpackLongY(pos) + 0.5,
+                    BlockPos.unpackLongZ(pos) + 0.5, from, to)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static boolean nearSegment(double x, double y, double z, Vec3d from, Vec3d to) {
+        double dx = to.x - from.x, dy = to.y - from.y, dz = to.z - from.z;
+        double px = x - from.x, py = y - from.y, pz = z - from.z;
+        double lengthSq = dx * dx + dy * dy + dz * dz;
+        // Closest point of the segment, as a fraction of its length
+        double t = lengthSq == 0 ? 0 : Math.max(0, Math.min(1, (px * dx + py * dy + pz * dz) / lengthSq));
+        double ox = px - t * dx, oy = py - t * dy, oz = pz - t * dz;
+        return ox * ox + oy * oy + oz * oz <= BLOCK_REACH * BLOCK_REACH;
+    }
+}
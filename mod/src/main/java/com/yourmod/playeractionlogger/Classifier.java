@@ -0,0 +1,181 @@
+package com.yourmod.playeractionlogger;
+
+import net.minecraft.block.Block;
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.Registry;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.registry.tag.TagKey;
+import net.minecraft.util.Identifier;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Categories of blocks and items (ore, important craft, ...) as bits by
+ * registry raw id, worked out for the whole registry from the configured
+ * tags and path patterns, so a check is an array read instead of string
+ * tests on every event. Registry paths don't depend on the language.
+ *
+ * <p>Tags are only bound once a world's data is loaded: {@link #rebuild()}
+ * runs at startup for the patterns and again on every tag reload. The bit
+ * arrays are replaced whole, readers on other threads see the old or the
+ * new ones.
+ */
+public class Classifier {
+    public enum Category {
+        ORE(SymbolTable.Kind.BLOCK),
+        VALUABLE_ORE(SymbolTable.Kind.BLOCK),
+        IMPORTANT_CRAFT(SymbolTable.Kind.ITEM),
+        IMPORTANT_USE(SymbolTable.Kind.ITEM);
+        
+        public final SymbolTable.Kind kind;
+        final int mask = 1 << ordinal();
+        
+        Category(SymbolTable.Kind kind) {
+            this.kind = kind;
+        }
+    }
+    
+    private final SymbolTable symbols;
+    private final Map<Category, PalConfig.CategoryConfig> config;
+    private volatile int[] blockBits = new int[0];
+    private volatile int[] itemBits = new int[0];
+    
+    public Classifier(SymbolTable symbols, Map<Category, PalConfig.CategoryConfig> config) {
+        this.symbols = symbols;
+        this.config = config;
+    }
+    
+    public void rebuild() {
+        blockBits = build(Registries.BLOCK, RegistryKeys.BLOCK, Block::getRegistryEntry, SymbolTable.Kind.BLOCK);
+        itemBits = build(Registries.ITEM, RegistryKeys.ITEM, Item::getRegistryEntry, SymbolTable.Kind.ITEM);
+    }
+    
+    // False for a symbol of another kind than the category's, raw ids only mean something in their registry
+    public boolean is(int symbol, Category category) {
+        if (symbols.getKind(symbol) != category.kind) return false;
+        return has(bits(category.kind), symbols.getRawId(symbol), category);
+    }
+    
+    public boolean is(Block block, Category category) {
+        return has(blockBits, Registries.BLOCK.getRawId(block), category);
+    }
+    
+    public boolean is(Item item, Category category) {
+        return has(itemBits, Registries.ITEM.getRawId(item), category);
+    }
+    
+    private int[] bits(SymbolTable.Kind kind) {
+        return switch (kind) {
+            case BLOCK -> blockBits;
+            case ITEM -> itemBits;
+            case ENTITY -> null;
+        };
+    }
+    
+    private static boolean has(int[] bits, int rawId, Category category) {
+        return bits != null && rawId >= 0 && rawId < bits.length && (bits[rawId] & category.mask) != 0;
+    }
+    
+    private <T> int[] build(Registry<T> registry, RegistryKey<? extends Registry<T>> registryKey,
+                            Function<T, RegistryEntry<T>> entryOf, SymbolTable.Kind kind) {
+        List<Category> categories = new ArrayList<>();
+        List<List<TagKey<T>>> tags = new ArrayList<>();
+        List<List<Glob>> patterns = new ArrayList<>();
+        for (Category category : Category.values()) {
+            PalConfig.CategoryConfig rules = config.get(category);
+            if (category.kind != kind || rules == null) continue;
+            categories.add(category);
+            tags.add(compileTags(registryKey, rules.tags));
+            patterns.add(compilePatterns(rules.patterns));
+        }
+        
+        int[] bits = new int[registry.size()];
+        for (T value : registry) {
+            int rawId = registry.getRawId(value);
+            if (rawId < 0 || rawId >= bits.length) continue;
+            String path = registry.getId(value).getPath();
+            RegistryEntry<T> entry = entryOf.apply(value);
+            
+            int mask = 0;
+            for (int i = 0; i < categories.size(); i++) {
+                if (matches(path, patterns.get(i)) || isInAny(entry, tags.get(i))) {
+                    mask |= categories.get(i).mask;
+                }
+            }
+            bits[rawId] = mask;
+        }
+        return bits;
+    }
+    
+    private static <T> boolean isInAny(RegistryEntry<T> entry, List<TagKey<T>> tags) {
+        for (TagKey<T> tag : tags) {
+            if (entry.isIn(tag)) return true;
+        }
+        return false;
+    }
+    
+    private static boolean matches(String path, List<Glob> patterns) {
+        for (Glob pattern : patterns) {
+            if (pattern.matches(path)) return true;
+        }
+        return false;
+    }
+    
+    private static <T> List<TagKey<T>> compileTags(RegistryKey<? extends Registry<T>> registryKey, List<String> ids) {
+        List<TagKey<T>> tags = new ArrayList<>();
+        if (ids == null) return tags;
+        for (String id : ids) {
+            // "#c:ores" as in data packs, or without the #
+            Identifier identifier = Identifier.tryParse(id.startsWith("#") ? id.substring(1) : id);
+            if (identifier == null) {
+                PlayerActionLogger.LOGGER.warn("Ignoring invalid tag {}", id);
+                continue;
+            }
+            tags.add(TagKey.of(registryKey, identifier));
+        }
+        return tags;
+    }
+    
+    private static List<Glob> compilePatterns(List<String> patterns) {
+        List<Glob> globs = new ArrayList<>();
+        if (patterns != null) {
+            for (String pattern : patterns) {
+                globs.add(new Glob(pattern));
+            }
+        }
+        return globs;
+    }
+    
+    // * matches any run of characters, anything else only itself
+    private static class Glob {
+        private final String[] parts;
+        private final boolean anchoredStart;
+        private final boolean anchoredEnd;
+        
+        Glob(String pattern) {
+            this.parts = Arrays.stream(pattern.split("\\*")).filter(p -> !p.isEmpty()).toArray(String[]::new);
+            this.anchoredStart = !pattern.startsWith("*");
+            this.anchoredEnd = !pattern.endsWith("*");
+        }
+        
+        boolean matches(String path) {
+            if (parts.length == 0) return !anchoredStart || path.isEmpty();
+            if (anchoredStart && !path.startsWith(parts[0])) return false;
+            if (anchoredEnd && !path.endsWith(parts[parts.length - 1])) return false;
+            if (parts.length == 1 && anchoredStart && anchoredEnd) return path.equals(parts[0]);
+            
+            // Earliest match of each part in turn; an anchored last part found at all is also found at the end
+            int from = 0;
+            for (String part : parts) {
+                int at = path.indexOf(part, from);
+                if (at < 0) return false;
+                from = at + part.length();
+            }
+            return true;
+        }
+    }
+}
@@ -1,15 +1,21 @@
 package com.yourmod.playeractionlogger;
 
-import net.minecraft.block.BlockState;
+import com.yourmod.playeractionlogger.util.IntLongCounterMap;
+import com.yourmod.playeractionlogger.util.WindowedCounter;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 
 import java.util.*;
 
 public class ConstructionTracker {
-    private final Map<String, Integer> currentSessionBlocks = new HashMap<>();
-    private final Map<String, Integer> last30SecondsBlocks = new HashMap<>();
-    private final Set<BlockPos> placedPositions = new HashSet<>();
+    private final SymbolTable symbols;
+    // Keyed by block symbol, names are only resolved for the update
+    // Per second over 5 minutes, reset with each building session
+    private final WindowedCounter blocks = new WindowedCounter(1000, 300);
+    // First bucket of blocks not reported yet
+    private long nextReportBucket = 0;
+    // Blocks of the session as bits, with incremental shape stats
+    private final VoxelStructure structure = new VoxelStructure();
     private long constructionStartTime = 0;
     private long lastUpdateTime = 0;
     private long lastBlockPlaceTime = 0;
@@ -17,39 +23,26 @@ public class ConstructionTracker {
     private static final long BUILDING_TIMEOUT = 3000; // 3 seconds to consider building stopped
     private static final long UPDATE_INTERVAL = 30000; // 30 seconds for updates
     
-    private int minX, maxX, minY, maxY, minZ, maxZ;
+    public ConstructionTracker(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
     
-    public void onBlockPlaced(BlockPos pos, BlockState state) {
-        String blockName = state.getBlock().getName().getString();
+    public void onBlockPlaced(BlockPos pos, int block) {
         long currentTime = System.currentTimeMillis();
         
         // Start or continue building session
         if (!isBuilding) {
             constructionStartTime = currentTime;
-            currentSessionBlocks.clear();
-            last30SecondsBlocks.clear();
-            placedPositions.clear();
+            blocks.reset();
+            nextReportBucket = blocks.bucketOf(currentTime);
+            structure.clear();
             isBuilding = true;
             lastUpdateTime = currentTime;
-            
-            // Initialize dimensions
-            minX = maxX = pos.getX();
-            minY = maxY = pos.getY();
-            minZ = maxZ = pos.getZ();
         }
         
-        // Update dimensions
-        minX = Math.min(minX, pos.getX());
-        maxX = Math.max(maxX, pos.getX());
-        minY = Math.min(minY, pos.getY());
-        maxY = Math.max(maxY, pos.getY());
-        minZ = Math.min(minZ, pos.getZ());
-        maxZ = Math.max(maxZ, pos.getZ());
-        
-        // Track blocks
-        currentSessionBlocks.put(blockName, currentSessionBlocks.getOrDefault(blockName, 0) + 1);
-        last30SecondsBlocks.put(blockName, last30SecondsBlocks.getOrDefault(blockName, 0) + 1);
-        placedPositions.add(pos);
+        // Track blocks, dimensions come from the structure
+        blocks.increment(block, currentTime);
+        structure.add(pos.getX(), pos.getY(), pos.getZ());
         lastBlockPlaceTime = currentTime;
     }
     
@@ -81,13 +74,15 @@ public class ConstructionTracker {
         boolean reportDimensions = false;
         
         if (isActive && duration >= UPDATE_INTERVAL) {
-            // Report last 30 seconds (periodic update)
-            blocksToReport = new HashMap<>(last30SecondsBlocks);
-            last30SecondsBlocks.clear();
+            // Report the whole seconds since the last update (periodic update)
+            long currentBucket = blocks.bucketOf(currentTime);
+            blocksToReport = symbols.toNames(
+                blocks.collect(nextReportBucket, currentBucket, new IntLongCounterMap()), new HashMap<>());
+            nextReportBucket = currentBucket;
             lastUpdateTime = currentTime;
         } else if (!isActive) {
             // Report entire session with dimensions
-            blocksToReport = new HashMap<>(currentSessionBlocks);
+            blocksToReport = symbols.toNames(blocks.getSession(), new HashMap<>());
             reportDimensions = true;
             isBuilding = false;
         } else {
@@ -95,11 +90,15 @@ public class ConstructionTracker {
             return null;
         }
         
-        int width = reportDimensions ? (maxX - minX + 1) : 0;
-        int height = reportDimensions ? (maxY - minY + 1) : 0;
-        int depth = reportDimensions ? (maxZ - minZ + 1) : 0;
+        int width = reportDimensions ? structure.getWidth() : 0;
+        int height = reportDimensions ? structure.getHeight() : 0;
+        int depth = reportDimensions ? structure.getDepth() : 0;
         
-        String type = determineStructureType(width, height, depth);
+        // The shape analysis first, the bounding box guess when it finds nothing specific
+        String type = reportDimensions ? structure.analyze().classify() : null;
+        if (type == null) {
+            type = determineStructureType(width, height, depth);
+        }
         
         return new ConstructionUpdate(blocksToReport, width, height, depth, type, duration, isActive, reportDimensions);
     }
@@ -124,6 +123,15 @@ public class ConstructionTracker {
         }
     }
     
+    // Over the last minute of the current session
+    public double getBlocksPerMinute(long time) {
+        return blocks.ratePerMinute(60000, time);
+    }
+    
+    public VoxelStructure getStructure() {
+        return structure;
+    }
+    
     public boolean isActiveBuilding() {
         return isBuilding && (System.currentTimeMillis() - lastBlockPlaceTime <= BUILDING_TIMEOUT);
     }
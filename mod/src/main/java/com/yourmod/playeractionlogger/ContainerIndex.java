@@ -0,0 +1,271 @@
+package com.yourmod.playeractionlogger;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.yourmod.playeractionlogger.util.IntLongCounterMap;
+import net.minecraft.inventory.DoubleInventory;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.screen.ScreenHandler;
+import net.minecraft.util.math.BlockPos;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Last seen contents of every container the player worked in, by dimension
+ * and position, so "where did I put X" is answered without reopening them.
+ *
+ * <p>A container is located by the block the player right-clicked just
+ * before, and only kept when the screen's slots really belong to that
+ * block's inventory (ender chests, entities and the like are left out).
+ * A double chest is always kept under its lower half, whichever half was
+ * clicked.
+ * Its contents are taken once from the first click of the session, then
+ * follow the slot deltas. An inverted index maps each item to the
+ * containers holding it; sorted answers are cached per item, least recently
+ * asked for dropped first, until that item moves.
+ *
+ * <p>Saved as {@code containers.json} through a temp file and an atomic
+ * rename when a session changed something, and on close. Used from the
+ * client thread only.
+ */
+public class ContainerIndex implements Closeable {
+    private static final String INDEX_FILE = "containers.json";
+    private static final int CACHED_LOOKUPS = 256;
+    // Both halves of a double chest share y
+    private static final Comparator<Location> LOWER_FIRST =
+        Comparator.comparingInt(Location::x).thenComparingInt(Location::z).thenComparingInt(Location::y);
+    
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private final Path indexFile;
+    private final SymbolTable symbols;
+    // Item counts by symbol, zero counts stay until the next snapshot of the container
+    private final Map<Location, IntLongCounterMap> contents = new HashMap<>();
+    // item symbol -> containers holding some
+    private final Map<Integer, Set<Location>> holders = new HashMap<>();
+    private final Map<Integer, List<Location>> lookups = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Location>> eldest) {
+            return size() > CACHED_LOOKUPS;
+        }
+    };
+    
+    // Last right-clicked container block, until a screen opens on it or closes
+    private Location pendingLocation;
+    // The upper half of a double chest, where older versions may have kept it
+    private Location pendingOtherHalf;
+    private Inventory pendingInventory;
+    // Session in progress: where, and which of the screen's slots are the container's
+    private Location sessionLocation;
+    private BitSet sessionSlots;
+    private boolean dirty = false;
+    
+    public ContainerIndex(Path dir, SymbolTable symbols) {
+        this.indexFile = dir.resolve(INDEX_FILE);
+        this.symbols = symbols;
+        load();
+    }
+    
+    public void onContainerUsed(String dimension, BlockPos pos, BlockPos otherHalf, Inventory inventory) {
+        pendingLocation = new Location(dimension, pos.getX(), pos.getY(), pos.getZ());
+        pendingOtherHalf = null;
+        if (otherHalf != null) {
+            Location other = new Location(dimension, otherHalf.getX(), otherHalf.getY(), otherHalf.getZ());
+            if (LOWER_FIRST.compare(other, pendingLocation) < 0) {
+                pendingOtherHalf = pendingLocation;
+                pendingLocation = other;
+            } else {
+                pendingOtherHalf = other;
+            }
+        }
+        pendingInventory = inventory;
+    }
+    
+    public void onContainerOpened(ScreenHandler handler, List<ItemStack> stacks) {
+        sessionLocation = null;
+        if (pendingInventory == null) return;
+        
+        BitSet slots = new BitSet();
+        for (int i = 0; i < handler.slots.size(); i++) {
+            Inventory inventory = handler.slots.get(i).inventory;
+            if (inventory == pendingInventory
+                    || inventory instanceof DoubleInventory both && both.isPart(pendingInventory)) {
+                slots.set(i);
+            }
+        }
+        if (slots.isEmpty()) return;
+        
+        sessionLocation = pendingLocation;
+        sessionSlots = slots;
+        
+        // What the container holds now replaces whatever was known of it
+        removeAll(sessionLocation);
+        if (pendingOtherHalf != null) removeAll(pendingOtherHalf);
+        IntLongCounterMap counts = new IntLongCounterMap();
+        for (int i = slots.nextSetBit(0); i >= 0 && i < stacks.size(); i = slots.nextSetBit(i + 1)) {
+            ItemStack stack = stacks.get(i);
+            if (!stack.isEmpty()) counts.add(symbols.item(stack.getItem()), stack.getCount());
+        }
+        counts.forEach((item, count) -> add(sessionLocation, item, count));
+        dirty = true;
+    }
+    
+    public void onSlotChanged(int slot, ItemStack newStack, ItemStack oldStack) {
+        if (sessionLocation == null || !sessionSlots.get(slot)) return;
+        if (!oldStack.isEmpty()) add(sessionLocation, symbols.item(oldStack.getItem()), -oldStack.getCount());
+        if (!newStack.isEmpty()) add(sessionLocation, symbols.item(newStack.getItem()), newStack.getCount());
+        dirty = true;
+    }
+    
+    public void onContainerClosed() {
+        pendingLocation = null;
+        pendingOtherHalf = null;
+        pendingInventory = null;
+        sessionLocation = null;
+        sessionSlots = null;
+        if (dirty) save();
+    }
+    
+    /**
+     * Containers last seen holding the item, the most first. The list is
+     * shared with the cache, don't modify it.
+     */
+    public List<Location> find(int item) {
+        List<Location> found = lookups.get(item);
+        if (found == null) {
+            Set<Location> locations = holders.get(item);
+            if (locations == null || locations.isEmpty()) {
+                found = List.of();
+            } else {
+                List<Location> sorted = new ArrayList<>(locations);
+                sorted.sort(Comparator.comparingLong((Location location) -> count(location, item)).reversed());
+                found = Collections.unmodifiableList(sorted);
+            }
+            lookups.put(item, found);
+        }
+        return found;
+    }
+    
+    // By registry id, "minecraft:iron_ingot"
+    public List<Location> find(String itemId) {
+        int item = symbols.itemById(itemId);
+        return item < 0 ? List.of() : find(item);
+    }
+    
+    public long count(Location location, int item) {
+        IntLongCounterMap counts = contents.get(location);
+        return counts == null ? 0 : counts.get(item);
+    }
+    
+    // Item symbol -> count, null for a container never seen
+    public IntLongCounterMap getContents(Location location) {
+        return contents.get(location);
+    }
+    
+    public int size() {
+        return contents.size();
+    }
+    
+    private void add(Location location, int item, long delta) {
+        long count = contents.computeIfAbsent(location, k -> new IntLongCounterMap()).add(item, delta);
+        if (count > 0) {
+            holders.computeIfAbsent(item, k -> new HashSet<>()).add(location);
+        } else {
+            Set<Location> locations = holders.get(item);
+            if (locations != null) locations.remove(location);
+        }
+        lookups.remove(item);
+    }
+    
+    private void removeAll(Location location) {
+        IntLongCounterMap counts = contents.remove(location);
+        if (counts == null) return;
+        counts.forEach((item, count) -> {
+            Set<Location> locations = holders.get(item);
+            if (locations != null) locations.remove(location);
+            lookups.remove(item);
+        });
+    }
+    
+    private void load() {
+        if (!Files.exists(indexFile)) return;
+        try (Reader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+            JsonObject index = gson.fromJson(reader, JsonObject.class);
+            if (index == null) return;
+            for (JsonElement element : index.getAsJsonArray("containers")) {
+                JsonObject container = element.getAsJsonObject();
+                Location location = new Location(container.get("dimension").getAsString(),
+                    container.get("x").getAsInt(), container.get("y").getAsInt(), container.get("z").getAsInt());
+                for (Map.Entry<String, JsonElement> entry : container.getAsJsonObject("items").entrySet()) {
+                    // Items of a mod no longer installed are dropped
+                    int item = symbols.itemById(entry.getKey());
+                    if (item >= 0) add(location, item, entry.getValue().getAsLong());
+                }
+            }
+        } catch (IOException | JsonParseException | IllegalStateException | NullPointerException e) {
+            PlayerActionLogger.LOGGER.error("Failed to load container index", e);
+        }
+    }
+    
+    public void save() {
+        JsonArray containers = new JsonArray();
+        contents.forEach((location, counts) -> {
+            JsonObject items = new JsonObject();
+            counts.forEach((item, count) -> {
+                if (count > 0) items.addProperty(symbols.getId(item), count);
+            });
+            if (items.size() == 0) return;
+            JsonObject container = new JsonObject();
+            container.addProperty("dimension", location.dimension());
+            container.addProperty("x", location.x());
+            container.addProperty("y", location.y());
+            container.addProperty("z", location.z());
+            container.add("items", items);
+            containers.add(container);
+        });
+        JsonObject index = new JsonObject();
+        index.add("containers", containers);
+        
+        Path temp = indexFile.resolveSibling(INDEX_FILE + ".tmp");
+        try {
+            Files.createDirectories(indexFile.getParent());
+            try (FileOutputStream out = new FileOutputStream(temp.toFile());
+                 Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+                gson.toJson(index, writer);
+                writer.flush();
+                out.getFD().sync();
+            }
+            try {
+                Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            dirty = false;
+        } catch (IOException e) {
+            PlayerActionLogger.LOGGER.error("Failed to save container index", e);
+        }
+    }
+    
+    @Override
+    public void close() {
+        if (dirty) save();
+    }
+    
+    public record Location(String dimension, int x, int y, int z) {
+        public BlockPos getPos() {
+            return new BlockPos(x, y, z);
+        }
+        
+        @Override
+        public String toString() {
+            return x + " " + y + " " + z + " (" + dimension + ")";
+        }
+    }
+}
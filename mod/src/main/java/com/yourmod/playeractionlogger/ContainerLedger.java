@@ -0,0 +1,124 @@
+package com.yourmod.playeractionlogger;
+
+import com.yourmod.playeractionlogger.util.IntLongCounterMap;
+import com.yourmod.playeractionlogger.util.LongRingBuffer;
+
+/**
+ * What one container session moved, by item symbol: the signed net change
+ * of the container (positive deposited, negative taken) and how many
+ * transfers touched each item, plus the most recent transfers themselves.
+ * Only the container's slots are counted, every transfer also shows up on
+ * the player's side and would count twice.
+ *
+ * <p>A stack moved in and back out nets to zero however many clicks it took,
+ * so the summary stays as long as the number of items that actually moved.
+ * Not thread-safe.
+ */
+public class ContainerLedger {
+    private static final int LOG_CAPACITY = 1024;
+    
+    private final IntLongCounterMap net = new IntLongCounterMap();
+    private final IntLongCounterMap moves = new IntLongCounterMap();
+    // Packed transfers, see pack(), oldest dropped past the capacity
+    private final LongRingBuffer transfers = new LongRingBuffer(LOG_CAPACITY);
+    private final String containerType;
+    private final long openTime;
+    private long closeTime = -1;
+    private long transferCount = 0;
+    
+    public ContainerLedger(String containerType, long openTime) {
+        this.containerType = containerType;
+        this.openTime = openTime;
+    }
+    
+    // delta is the change of the container slot, positive when items were put in
+    public void record(int slot, int item, int delta, long time) {
+        if (delta == 0) return;
+        net.add(item, delta);
+        moves.increment(item);
+        transfers.add(pack(slot, item, delta), time);
+        transferCount++;
+    }
+    
+    public void close(long time) {
+        closeTime = time;
+    }
+    
+    public long getNet(int item) {
+        return net.get(item);
+    }
+    
+    public long getMoves(int item) {
+        return moves.get(item);
+    }
+    
+    // Every item that moved, even when it nets to zero
+    public IntLongCounterMap getNet() {
+        return net;
+    }
+    
+    public IntLongCounterMap getMoves() {
+        return moves;
+    }
+    
+    public long getTransferCount() {
+        return transferCount;
+    }
+    
+    public boolean isEmpty() {
+        return transferCount == 0;
+    }
+    
+    public String getContainerType() {
+        return containerType;
+    }
+    
+    public long getOpenTime() {
+        return openTime;
+    }
+    
+    // -1 while the container is open
+    public long getCloseTime() {
+        return closeTime;
+    }
+    
+    public long getDuration(long now) {
+        return (closeTime >= 0 ? closeTime : now) - openTime;
+    }
+    
+    // Oldest first, only the last LOG_CAPACITY transfers are kept
+    public void forEachTransfer(TransferVisitor visitor) {
+        for (int i = 0; i < transfers.size(); i++) {
+            long packed = transfers.get(i);
+            visitor.accept(transfers.getTime(i), unpackSlot(packed), unpackItem(packed), unpackDelta(packed));
+        }
+    }
+    
+    // Transfers made at or after the given time
+    public int countTransfersSince(long time) {
+        return transfers.countSince(time);
+    }
+    
+    // Item symbol in the high 32 bits, then the slot and the delta as 16 bits each
+    private static long pack(int slot, int item, int delta) {
+        int clamped = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, delta));
+        return (long) item << 32 | (long) (slot & 0xFFFF) << 16 | (clamped & 0xFFFF);
+    }
+    
+    private static int unpackItem(long packed) {
+        return (int) (packed >>> 32);
+    }
+    
+    private static int unpackSlot(long packed) {
+        return (int) (packed >>> 16 & 0xFFFF);
+    }
+    
+    private static int unpackDelta(long packed) {
+        return (short) packed;
+    }
+    
+    @FunctionalInterface
+    public interface TransferVisitor {
+        void accept(long time, int slot, int item, int delta);
+    }
+}
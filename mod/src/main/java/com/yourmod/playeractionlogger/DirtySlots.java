@@ -0,0 +1,135 @@
+package com.yourmod.playeractionlogger;
+
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.screen.ScreenHandler;
+import net.minecraft.screen.slot.Slot;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The slots of a screen handler touched during one click, recorded by the
+ * slot hooks while the click runs, so only those are compared afterwards.
+ *
+ * <p>Vanilla often changes a stack in place before any hooked mutation
+ * (insertStack increments it, a quick move empties it), but always after
+ * reading it through getStack(). So a slot's stack is copied the first time
+ * the click reads or replaces it, which is its state before the click.
+ * The handler's last synced stacks are no substitute: a hopper may have
+ * changed the slot since, and they lag behind after a resync.
+ *
+ * <p>One click at a time per thread: slots are also read and mutated on the
+ * client thread, which never records.
+ */
+public class DirtySlots {
+    private static final ThreadLocal<DirtySlots> CURRENT = new ThreadLocal<>();
+    
+    private final ScreenHandler handler;
+    // By slot id, what the slot held when the click first got to it
+    private final ItemStack[] before;
+    private final BitSet seen = new BitSet();
+    // Slot ids in the order they were first changed
+    private int[] ids = new int[8];
+    private int count = 0;
+    // Set while copying, the copy reads the slot through the hooked getStack() again
+    private boolean copying = false;
+    
+    private DirtySlots(ScreenHandler handler) {
+        this.handler = handler;
+        this.before = new ItemStack[handler.slots.size()];
+    }
+    
+    // Replaces whatever an interrupted click left behind
+    public static DirtySlots begin(ScreenHandler handler) {
+        DirtySlots dirty = new DirtySlots(handler);
+        CURRENT.set(dirty);
+        return dirty;
+    }
+    
+    public static void end() {
+        CURRENT.remove();
+    }
+    
+    // Called by the slot hooks before a stack is read, possibly to be changed in place
+    public static void onSlotRead(Slot slot) {
+        DirtySlots dirty = CURRENT.get();
+        if (dirty != null) dirty.remember(slot);
+    }
+    
+    // Called by the slot hooks before a stack is replaced or taken from
+    public static void onSlotMutating(Slot slot) {
+        DirtySlots dirty = CURRENT.get();
+        if (dirty != null) {
+            dirty.remember(slot);
+            dirty.mark(slot);
+        }
+    }
+    
+    // Called by the slot hooks after a change made in place, too late to copy
+    public static void onSlotChanged(Slot slot) {
+        DirtySlots dirty = CURRENT.get();
+        if (dirty != null) dirty.mark(slot);
+    }
+    
+    /**
+     * For changes made straight to an inventory behind the handler's back,
+     * like a hotbar swap: copy the slot before the click with
+     * {@code changed = false}, mark it after with {@code changed = true}.
+     */
+    public void inventorySlot(Inventory inventory, int index, boolean changed) {
+        for (Slot slot : handler.slots) {
+            if (slot.inventory == inventory && slot.getIndex() == index) {
+                if (changed) {
+                    mark(slot);
+                } else {
+                    remember(slot);
+                }
+            }
+        }
+    }
+    
+    private boolean owns(Slot slot) {
+        int id = slot.id;
+        // Slots of another handler (the player's own screen) don't belong to this click
+        return id >= 0 && id < before.length && handler.slots.get(id) == slot;
+    }
+    
+    private void remember(Slot slot) {
+        if (copying || !owns(slot) || before[slot.id] != null) return;
+        copying = true;
+        try {
+            before[slot.id] = slot.getStack().copy();
+        } finally {
+            copying = false;
+        }
+    }
+    
+    private void mark(Slot slot) {
+        if (!owns(slot)) return;
+        int id = slot.id;
+        if (seen.get(id)) return;
+        seen.set(id);
+        
+        if (count == ids.length) {
+            ids = Arrays.copyOf(ids, count * 2);
+        }
+        ids[count++] = id;
+    }
+    
+    public int size() {
+        return count;
+    }
+    
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < count; i++) {
+            visitor.accept(ids[i], before[ids[i]]);
+        }
+    }
+    
+    @FunctionalInterface
+    public interface Visitor {
+        // before is null for a slot changed without being read first, which vanilla doesn't do
+        void accept(int slotId, ItemStack before);
+    }
+}
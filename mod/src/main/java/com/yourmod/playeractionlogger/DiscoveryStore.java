@@ -0,0 +1,192 @@
+package com.yourmod.playeractionlogger;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * What each player has already discovered, by type ("entities", "ores", ...).
+ *
+ * <p>Lookups hit in-memory hash sets. A new discovery costs one line appended
+ * to {@code discoveries.journal}; every {@link #COMPACT_EVERY} of them, and on
+ * close, the sets are written out as the {@code discoveries.json} snapshot
+ * (same format as before) through a temp file and an atomic rename, and the
+ * journal starts over. Loading reads the snapshot then replays the journal,
+ * skipping a torn last line, so a crash at any point loses at most the
+ * discovery being written.
+ */
+public class DiscoveryStore implements Closeable {
+    private static final String SNAPSHOT_FILE = "discoveries.json";
+    private static final String JOURNAL_FILE = "discoveries.journal";
+    private static final int COMPACT_EVERY = 256;
+    
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private final Path snapshotFile;
+    private final Path journalFile;
+    // player -> type -> items
+    private final Map<String, Map<String, Set<String>>> discoveries = new ConcurrentHashMap<>();
+    private Writer journal;
+    private int journalEntries = 0;
+    
+    public DiscoveryStore(Path dir) {
+        this.snapshotFile = dir.resolve(SNAPSHOT_FILE);
+        this.journalFile = dir.resolve(JOURNAL_FILE);
+        load();
+    }
+    
+    public boolean has(String playerName, String type, String item) {
+        Map<String, Set<String>> types = discoveries.get(playerName);
+        if (types == null) return false;
+        Set<String> items = types.get(type);
+        return items != null && items.contains(item);
+    }
+    
+    // Returns false if it was already known
+    public boolean add(String playerName, String type, String item) {
+        boolean added = items(playerName, type).add(item);
+        if (added) {
+            append(playerName, type, item);
+        }
+        return added;
+    }
+    
+    private Set<String> items(String playerName, String type) {
+        return discoveries.computeIfAbsent(playerName, k -> new ConcurrentHashMap<>())
+            .computeIfAbsent(type, k -> ConcurrentHashMap.newKeySet());
+    }
+    
+    private synchronized void append(String playerName, String type, String item) {
+        try {
+            if (journal == null) {
+                Files.createDirectories(journalFile.getParent());
+                journal = Files.newBufferedWriter(journalFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            JsonArray entry = new JsonArray();
+            entry.add(playerName);
+            entry.add(type);
+            entry.add(item);
+            journal.write(entry.toString());
+            journal.write('\n');
+            journal.flush();
+        } catch (IOException e) {
+            PlayerActionLogger.LOGGER.error("Failed to save discovery", e);
+            return;
+        }
+        
+        if (++journalEntries >= COMPACT_EVERY) {
+            compact();
+        }
+    }
+    
+    private void load() {
+        if (Files.exists(snapshotFile)) {
+            try (Reader reader = Files.newBufferedReader(snapshotFile, StandardCharsets.UTF_8)) {
+                JsonObject snapshot = gson.fromJson(reader, JsonObject.class);
+                if (snapshot != null) {
+                    for (Map.Entry<String, JsonElement> player : snapshot.entrySet()) {
+                        for (Map.Entry<String, JsonElement> type : player.getValue().getAsJsonObject().entrySet()) {
+                            Set<String> items = items(player.getKey(), type.getKey());
+                            for (JsonElement item : type.getValue().getAsJsonArray()) {
+                                items.add(item.getAsString());
+                            }
+                        }
+                    }
+                }
+            } catch (IOException | JsonParseException | IllegalStateException e) {
+                PlayerActionLogger.LOGGER.error("Failed to load discoveries", e);
+            }
+        }
+        
+        boolean damaged = false;
+        if (Files.exists(journalFile)) {
+            try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    try {
+                        JsonArray entry = JsonParser.parseString(line).getAsJsonArray();
+                        items(entry.get(0).getAsString(), entry.get(1).getAsString()).add(entry.get(2).getAsString());
+                        journalEntries++;
+                    } catch (JsonParseException | IllegalStateException | IndexOutOfBoundsException e) {
+                        // Torn write from a crash, only ever the last line
+                        PlayerActionLogger.LOGGER.warn("Skipping damaged discovery journal entry: {}", line);
+                        damaged = true;
+                    }
+                }
+            } catch (IOException e) {
+                PlayerActionLogger.LOGGER.error("Failed to replay discovery journal", e);
+            }
+        }
+        if (damaged) {
+            // Start a clean journal, appending after a torn line would damage the next entry too
+            compact();
+        }
+    }
+    
+    // Writes everything into the snapshot and empties the journal
+    public synchronized void compact() {
+        JsonObject snapshot = new JsonObject();
+        discoveries.forEach((playerName, types) -> {
+            JsonObject playerDiscoveries = new JsonObject();
+            types.forEach((type, items) -> {
+                JsonArray array = new JsonArray();
+                items.stream().sorted().forEach(array::add);
+                playerDiscoveries.add(type, array);
+            });
+            snapshot.add(playerName, playerDiscoveries);
+        });
+        
+        Path temp = snapshotFile.resolveSibling(SNAPSHOT_FILE + ".tmp");
+        try {
+            Files.createDirectories(snapshotFile.getParent());
+            try (FileOutputStream out = new FileOutputStream(temp.toFile());
+                 Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+                gson.toJson(snapshot, writer);
+                writer.flush();
+                // On disk before the rename makes it the snapshot
+                out.getFD().sync();
+            }
+            try {
+                Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            
+            // Everything in the journal is in the snapshot now, replaying it again would be harmless
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+            Files.deleteIfExists(journalFile);
+            journalEntries = 0;
+        } catch (IOException e) {
+            PlayerActionLogger.LOGGER.error("Failed to save discoveries", e);
+        }
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (journalEntries > 0 || !Files.exists(snapshotFile)) {
+            compact();
+        }
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                PlayerActionLogger.LOGGER.error("Failed to close discovery journal", e);
+            }
+            journal = null;
+        }
+    }
+}
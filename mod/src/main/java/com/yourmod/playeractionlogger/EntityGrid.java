@@ -0,0 +1,196 @@
+package com.yourmod.playeractionlogger;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * The entities around one viewer, binned in 16-block cells by their centre.
+ * Known entities are re-binned in place when they cross a cell; the world is
+ * only searched for newcomers every few refreshes, or when the viewer has
+ * moved far enough that the tracked area no longer covers the view range.
+ *
+ * <p>{@link #forEachInCone} tests whole cells against the view cone first,
+ * so a query only touches the entities of the cells the cone reaches.
+ */
+public class EntityGrid {
+    private static final int CELL_SHIFT = 4;
+    private static final double CELL_SIZE = 1 << CELL_SHIFT;
+    // Half diagonal of a cell, plus slack for entity boxes sticking out of it
+    private static final double CELL_RADIUS = CELL_SIZE * Math.sqrt(3) / 2 + 4.0;
+    // Extra distance tracked around the view range, the viewer can move this far before a new search
+    private static final double MARGIN = 16.0;
+    private static final int DISCOVERY_INTERVAL = 5;
+    
+    private final Map<Long, List<Tracked>> cells = new HashMap<>();
+    private final Map<Integer, Tracked> tracked = new HashMap<>();
+    private World world;
+    private Vec3d discoveredAt;
+    private int refreshesSinceDiscovery;
+    
+    /**
+     * Brings the grid up to date around {@code center}. Must run on the thread
+     * that owns the entities, it reads their positions.
+     */
+    public void refresh(Entity viewer, Vec3d center, double range) {
+        World viewerWorld = viewer.getWorld();
+        if (viewerWorld != world) {
+            clear();
+            world = viewerWorld;
+        }
+        
+        if (discoveredAt == null
+                || ++refreshesSinceDiscovery >= DISCOVERY_INTERVAL
+                || Math.abs(center.x - discoveredAt.x) > MARGIN
+                || Math.abs(center.y - discoveredAt.y) > MARGIN
+                || Math.abs(center.z - discoveredAt.z) > MARGIN) {
+            discover(viewer, center, range + MARGIN);
+        } else {
+            move();
+        }
+    }
+    
+    private void discover(Entity viewer, Vec3d center, double radius) {
+        Box searchBox = new Box(center.subtract(radius, radius, radius), center.add(radius, radius, radius));
+        List<Entity> found = world.getOtherEntities(viewer, searchBox, entity -> true);
+        
+        Map<Integer, Tracked> previous = new HashMap<>(tracked);
+        for (Entity entity : found) {
+            Tracked entry = previous.remove(entity.getId());
+            if (entry == null || entry.entity != entity) {
+                if (entry != null) remove(entry);
+                entry = new Tracked(entity);
+                tracked.put(entity.getId(), entry);
+                insert(entry, cellOf(entity));
+            } else {
+                rebin(entry);
+            }
+        }
+        // Whatever the search didn't return has left the area or the world
+        for (Tracked gone : previous.values()) {
+            remove(gone);
+        }
+        
+        discoveredAt = center;
+        refreshesSinceDiscovery = 0;
+    }
+    
+    private void move() {
+        Iterator<Tracked> iterator = tracked.values().iterator();
+        while (iterator.hasNext()) {
+            Tracked entry = iterator.next();
+            if (entry.entity.isRemoved()) {
+                unlink(entry);
+                iterator.remove();
+            } else {
+                rebin(entry);
+            }
+        }
+    }
+    
+    /**
+     * Hands every entity whose cell the cone may reach to {@code visitor}, the
+     * caller still tests each entity itself. The cone starts at {@code eye},
+     * points along the unit vector {@code look} and is cut at {@code maxDistance}.
+     */
+    public void forEachInCone(Vec3d eye, Vec3d look, double maxDistance, double cosHalfAngle, double sinHalfAngle,
+                              Consumer<Entity> visitor) {
+        double reach = maxDistance + CELL_RADIUS;
+        double reachSq = reach * reach;
+        double radiusSq = CELL_RADIUS * CELL_RADIUS;
+        
+        for (Map.Entry<Long, List<Tracked>> cell : cells.entrySet()) {
+            long key = cell.getKey();
+            double dx = (ChunkSectionPos.unpackX(key) + 0.5) * CELL_SIZE - eye.x;
+            double dy = (ChunkSectionPos.unpackY(key) + 0.5) * CELL_SIZE - eye.y;
+            double dz = (ChunkSectionPos.unpackZ(key) + 0.5) * CELL_SIZE - eye.z;
+            double distanceSq = dx * dx + dy * dy + dz * dz;
+            if (distanceSq > reachSq) continue;
+            
+            // Sphere around the cell against the cone: the eye is inside it, or the
+            // angle to its centre is within the half angle plus what the sphere subtends
+            if (distanceSq > radiusSq) {
+                double along = look.x * dx + look.y * dy + look.z * dz;
+                if (along < cosHalfAngle * Math.sqrt(distanceSq - radiusSq) - sinHalfAngle * CELL_RADIUS) continue;
+            }
+            
+            for (Tracked entry : cell.getValue()) {
+                visitor.accept(entry.entity);
+            }
+        }
+    }
+    
+    public int size() {
+        return tracked.size();
+    }
+    
+    public int getCellCount() {
+        return cells.size();
+    }
+    
+    public void clear() {
+        cells.clear();
+        tracked.clear();
+        world = null;
+        discoveredAt = null;
+    }
+    
+    private void rebin(Tracked entry) {
+        long cell = cellOf(entry.entity);
+        if (cell != entry.cell) {
+            unlink(entry);
+            insert(entry, cell);
+        }
+    }
+    
+    private void remove(Tracked entry) {
+        unlink(entry);
+        tracked.remove(entry.entity.getId());
+    }
+    
+    private void insert(Tracked entry, long cell) {
+        List<Tracked> members = cells.computeIfAbsent(cell, key -> new ArrayList<>());
+        entry.cell = cell;
+        entry.slot = members.size();
+        members.add(entry);
+    }
+    
+    // Swap-remove, the last member takes the freed slot
+    private void unlink(Tracked entry) {
+        List<Tracked> members = cells.get(entry.cell);
+        Tracked last = members.remove(members.size() - 1);
+        if (last != entry) {
+            members.set(entry.slot, last);
+            last.slot = entry.slot;
+        }
+        if (members.isEmpty()) {
+            cells.remove(entry.cell);
+        }
+    }
+    
+    private static long cellOf(Entity entity) {
+        return ChunkSectionPos.asLong(
+            (int) Math.floor(entity.getX()) >> CELL_SHIFT,
+            (int) Math.floor(entity.getY() + entity.getHeight() / 2) >> CELL_SHIFT,
+            (int) Math.floor(entity.getZ()) >> CELL_SHIFT);
+    }
+    
+    private static class Tracked {
+        final Entity entity;
+        long cell;
+        int slot;
+        
+        Tracked(Entity entity) {
+            this.entity = entity;
+        }
+    }
+}
@@ -9,19 +9,23 @@ import net.minecraft.screen.*;
 import java.util.*;
 
 public class InventoryTracker {
-    private Map<String, Integer> itemsMovedIn = new HashMap<>();
-    private Map<String, Integer> itemsMovedOut = new HashMap<>();
+    private final SymbolTable symbols;
+    // Net transfers of the open container session, by item symbol
+    private ContainerLedger ledger = new ContainerLedger("", 0);
+    private ContainerLedger lastLedger;
     private String containerType = "";
-    private long openTime = 0;
-    private boolean hasInteracted = false;
     private boolean isPlayerInventoryOnly = false;
     
+    public InventoryTracker(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+    
     public void onInventoryOpened(ScreenHandler handler) {
         reset();
-        openTime = System.currentTimeMillis();
         
         // Get actual container name from the handler
         containerType = getContainerTypeName(handler);
+        ledger = new ContainerLedger(containerType, System.currentTimeMillis());
         
         // Check if this is just the player's inventory (no external container)
         isPlayerInventoryOnly = containerType.equals("Player Inventory") || 
@@ -88,96 +92,84 @@ public class InventoryTracker {
             return;
         }
         
+        // The player's side of a transfer mirrors the container's, only the container is counted
+        if (isPlayerSlot) return;
         if (newStack.isEmpty() && oldStack.isEmpty()) return;
         
-        hasInteracted = true;
-        
-        if (!oldStack.isEmpty() && newStack.isEmpty()) {
-            // Item removed
-            String itemName = oldStack.getName().getString();
-            int count = oldStack.getCount();
-            
-            if (isPlayerSlot) {
-                // Item moved from player to container
-                itemsMovedIn.put(itemName, itemsMovedIn.getOrDefault(itemName, 0) + count);
-            } else {
-                // Item taken from container
-                itemsMovedOut.put(itemName, itemsMovedOut.getOrDefault(itemName, 0) + count);
-            }
-        } else if (oldStack.isEmpty() && !newStack.isEmpty()) {
-            // Item added
-            String itemName = newStack.getName().getString();
-            int count = newStack.getCount();
-            
-            if (isPlayerSlot) {
-                // Item moved from container to player
-                itemsMovedOut.put(itemName, itemsMovedOut.getOrDefault(itemName, 0) + count);
-            } else {
-                // Item placed in container
-                itemsMovedIn.put(itemName, itemsMovedIn.getOrDefault(itemName, 0) + count);
-            }
-        } else if (!oldStack.isEmpty() && !newStack.isEmpty()) {
+        long time = System.currentTimeMillis();
+        if (!oldStack.isEmpty() && !newStack.isEmpty() && oldStack.getItem() == newStack.getItem()) {
             // Stack size changed
-            String oldName = oldStack.getName().getString();
-            String newName = newStack.getName().getString();
-            
-            if (oldName.equals(newName)) {
-                int diff = newStack.getCount() - oldStack.getCount();
-                if (diff != 0) {
-                    Map<String, Integer> targetMap = diff > 0 ? 
-                        (isPlayerSlot ? itemsMovedOut : itemsMovedIn) : 
-                        (isPlayerSlot ? itemsMovedIn : itemsMovedOut);
-                    targetMap.put(newName, targetMap.getOrDefault(newName, 0) + Math.abs(diff));
-                }
-            } else {
-                // Different items - treat as remove and add
-                if (isPlayerSlot) {
-                    itemsMovedIn.put(oldName, itemsMovedIn.getOrDefault(oldName, 0) + oldStack.getCount());
-                    itemsMovedOut.put(newName, itemsMovedOut.getOrDefault(newName, 0) + newStack.getCount());
-                } else {
-                    itemsMovedOut.put(oldName, itemsMovedOut.getOrDefault(oldName, 0) + oldStack.getCount());
-                    itemsMovedIn.put(newName, itemsMovedIn.getOrDefault(newName, 0) + newStack.getCount());
-                }
+            ledger.record(slotIndex, symbols.item(newStack.getItem()), newStack.getCount() - oldStack.getCount(), time);
+        } else {
+            // Removed, added, or replaced by another item: one transfer each way
+            if (!oldStack.isEmpty()) {
+                ledger.record(slotIndex, symbols.item(oldStack.getItem()), -oldStack.getCount(), time);
+            }
+            if (!newStack.isEmpty()) {
+                ledger.record(slotIndex, symbols.item(newStack.getItem()), newStack.getCount(), time);
             }
         }
     }
     
     public String getSummary() {
-        if (!hasInteracted || isPlayerInventoryOnly || containerType.isEmpty()) return null;
+        if (!hasInteracted() || isPlayerInventoryOnly || containerType.isEmpty()) return null;
+        
+        long duration = ledger.getDuration(System.currentTimeMillis()) / 1000;
+        StringBuilder deposited = new StringBuilder();
+        StringBuilder took = new StringBuilder();
+        StringBuilder shuffled = new StringBuilder();
+        // Net counts only: an item moved back and forth is named once, without a count
+        ledger.getNet().forEach((item, net) -> {
+            String name = symbols.getName(item);
+            if (net > 0) {
+                deposited.append(name).append(" x").append(net).append(", ");
+            } else if (net < 0) {
+                took.append(name).append(" x").append(-net).append(", ");
+            } else {
+                shuffled.append(name).append(", ");
+            }
+        });
         
-        long duration = (System.currentTimeMillis() - openTime) / 1000;
         StringBuilder sb = new StringBuilder();
         sb.append("Interacted with ").append(containerType);
         sb.append(" for ").append(duration).append("s");
-        
-        if (!itemsMovedIn.isEmpty()) {
-            sb.append(" | Deposited: ");
-            itemsMovedIn.forEach((item, count) -> 
-                sb.append(item).append(" x").append(count).append(", "));
-            sb.setLength(sb.length() - 2); // Remove last comma
-        }
-        
-        if (!itemsMovedOut.isEmpty()) {
-            sb.append(" | Took: ");
-            itemsMovedOut.forEach((item, count) -> 
-                sb.append(item).append(" x").append(count).append(", "));
-            sb.setLength(sb.length() - 2); // Remove last comma
-        }
+        appendSection(sb, " | Deposited: ", deposited);
+        appendSection(sb, " | Took: ", took);
+        appendSection(sb, " | Moved around: ", shuffled);
         
         return sb.toString();
     }
     
+    private static void appendSection(StringBuilder sb, String label, StringBuilder items) {
+        if (items.length() == 0) return;
+        items.setLength(items.length() - 2); // Remove last comma
+        sb.append(label).append(items);
+    }
+    
     public void reset() {
-        itemsMovedIn.clear();
-        itemsMovedOut.clear();
+        long now = System.currentTimeMillis();
+        // The closed session stays queryable until the next one ends
+        if (!ledger.isEmpty()) {
+            ledger.close(now);
+            lastLedger = ledger;
+        }
         containerType = "";
-        openTime = System.currentTimeMillis();
-        hasInteracted = false;
+        ledger = new ContainerLedger(containerType, now);
         isPlayerInventoryOnly = false;
     }
     
     public boolean hasInteracted() {
-        return hasInteracted;
+        return !ledger.isEmpty();
+    }
+    
+    // The open session's ledger
+    public ContainerLedger getLedger() {
+        return ledger;
+    }
+    
+    // The last session that moved anything, null before the first one
+    public ContainerLedger getLastLedger() {
+        return lastLedger;
     }
     
     public String getContainerType() {
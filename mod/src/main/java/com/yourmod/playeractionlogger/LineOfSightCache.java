@@ -0,0 +1,94 @@
+package com.yourmod.playeractionlogger;
+
+import net.minecraft.util.math.Vec3d;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Last line-of-sight answer per entity id, with the segment it was raycast
+ * along. The answer is reused while neither end has moved more than the
+ * threshold and no block changed near the segment since. Entities left out
+ * of a scan are forgotten at its end.
+ *
+ * <p>Not thread-safe, only the counters can be read from another thread.
+ */
+public class LineOfSightCache {
+    private final BlockChangeLog changes;
+    private final double thresholdSq;
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private int scan = 0;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    
+    public LineOfSightCache(BlockChangeLog changes, double threshold) {
+        this.changes = changes;
+        this.thresholdSq = threshold * threshold;
+    }
+    
+    public void beginScan() {
+        scan++;
+    }
+    
+    /**
+     * The cached answer for the entity, or {@code raycast}'s when it can't be
+     * reused. {@code sequence} is the block change log's sequence from before
+     * the world was read for this raycast.
+     */
+    public boolean isClear(int entityId, Vec3d from, Vec3d to, long sequence, BooleanSupplier raycast) {
+        Entry entry = entries.get(entityId);
+        if (entry != null
+                && entry.from.squaredDistanceTo(from) < thresholdSq
+                && entry.to.squaredDistanceTo(to) < thresholdSq
+                && !changes.changedNear(entry.sequence, entry.from, entry.to)) {
+            entry.scan = scan;
+            hits.incrementAndGet();
+            return entry.clear;
+        }
+        
+        boolean clear = raycast.getAsBoolean();
+        misses.incrementAndGet();
+        entries.put(entityId, new Entry(from, to, sequence, clear, scan));
+        return clear;
+    }
+    
+    public void endScan() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().scan != scan) iterator.remove();
+        }
+    }
+    
+    public long getHits() {
+        return hits.get();
+    }
+    
+    // Every miss is a raycast done, every hit one saved
+    public long getMisses() {
+        return misses.get();
+    }
+    
+    public double getHitRate() {
+        long h = hits.get(), total = h + misses.get();
+        return total == 0 ? 0 : (double) h / total;
+    }
+    
+    private static class Entry {
+        final Vec3d from;
+        final Vec3d to;
+        final long sequence;
+        final boolean clear;
+        int scan;
+        
+        Entry(Vec3d from, Vec3d to, long sequence, boolean clear, int scan) {
+            this.from = from;
+            this.to = to;
+            this.sequence = sequence;
+            this.clear = clear;
+            this.scan = scan;
+        }
+    }
+}
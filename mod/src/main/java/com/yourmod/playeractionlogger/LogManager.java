@@ -1,274 +1,187 @@
 package com.yourmod.playeractionlogger;
 
 import net.minecraft.server.network.ServerPlayerEntity;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonArray;
+import net.minecraft.util.math.BlockPos;
+import com.yourmod.playeractionlogger.log.EventSink;
+import com.yourmod.playeractionlogger.log.EventStreamServer;
+import com.yourmod.playeractionlogger.log.LogEvent;
+import com.yourmod.playeractionlogger.log.LogEventType;
+import com.yourmod.playeractionlogger.log.LogRenderer;
+import com.yourmod.playeractionlogger.log.PlayerLogFiles;
+import com.yourmod.playeractionlogger.log.SessionArchiver;
+import com.yourmod.playeractionlogger.log.SinkFanout;
+import com.yourmod.playeractionlogger.log.SinkFilter;
+import com.yourmod.playeractionlogger.log.Slf4jSink;
+import com.yourmod.playeractionlogger.util.RingBuffer;
 
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.text.SimpleDateFormat;
 import java.util.*;
 
 public class LogManager {
     private static final String LOG_DIR = "logs/player_actions";
-    private static final String DISCOVERIES_FILE = "discoveries.json";
-    private static final SimpleDateFormat TIME_FORMAT = new SimpleDateFormat("HH:mm:ss");
-    private final Gson gson;
-    private final Map<String, PrintWriter> playerLogWriters;
-    private final Map<String, List<String>> recentLogs;
-    private JsonObject discoveries;
+    private static final int RECENT_LOG_CAPACITY = 50;
+    private final SinkFanout sinks;
+    private EventStreamServer streamServer;
+    private SessionArchiver archiver;
+    private final Map<String, RingBuffer<LogEvent>> recentLogs;
+    private final DiscoveryStore discoveries;
     
-    public LogManager() {
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
-        this.playerLogWriters = new HashMap<>();
+    public LogManager(PalConfig config) {
+        this.sinks = new SinkFanout(config.writer);
+        if (config.sinks.text.enabled) {
+            addSink("text", createLogFiles(config), config.sinks.text, config.writer);
+        }
+        if (config.sinks.console.enabled) {
+            addSink("console", new Slf4jSink(PlayerActionLogger.LOGGER), config.sinks.console, config.writer);
+        }
         this.recentLogs = new HashMap<>();
-        this.discoveries = new JsonObject();
+        this.discoveries = new DiscoveryStore(Paths.get(LOG_DIR));
         
         try {
             Files.createDirectories(Paths.get(LOG_DIR));
-            loadDiscoveries();
         } catch (IOException e) {
             PlayerActionLogger.LOGGER.error("Failed to create log directory", e);
         }
     }
     
-    private void loadDiscoveries() {
-        try {
-            String filePath = LOG_DIR + "/" + DISCOVERIES_FILE;
-            File file = new File(filePath);
-            if (file.exists()) {
-                try (FileReader reader = new FileReader(file)) {
-                    discoveries = gson.fromJson(reader, JsonObject.class);
-                    if (discoveries == null) {
-                        discoveries = new JsonObject();
-                    }
-                }
+    private PlayerLogFiles createLogFiles(PalConfig config) {
+        PlayerLogFiles logFiles = new PlayerLogFiles(Paths.get(LOG_DIR), config);
+        if (config.stream.enabled) {
+            try {
+                streamServer = new EventStreamServer(Paths.get(LOG_DIR), config.stream);
+                logFiles.setWriteListener(streamServer);
+            } catch (IOException e) {
+                PlayerActionLogger.LOGGER.error("Failed to start the event stream, file logging only", e);
             }
-        } catch (IOException e) {
-            PlayerActionLogger.LOGGER.error("Failed to load discoveries", e);
         }
+        if (config.archive.enabled) {
+            archiver = new SessionArchiver(Paths.get(LOG_DIR), config.archive);
+            logFiles.setArchiver(archiver);
+        }
+        return logFiles;
     }
     
-    private void saveDiscoveries() {
-        try {
-            String filePath = LOG_DIR + "/" + DISCOVERIES_FILE;
-            try (FileWriter writer = new FileWriter(filePath)) {
-                gson.toJson(discoveries, writer);
-            }
-        } catch (IOException e) {
-            PlayerActionLogger.LOGGER.error("Failed to save discoveries", e);
-        }
+    private void addSink(String name, EventSink sink, PalConfig.SinkConfig config, PalConfig.WriterConfig writer) {
+        sinks.add(name, sink, SinkFilter.from(config),
+            config.queueCapacity > 0 ? config.queueCapacity : writer.queueCapacity,
+            config.overflowPolicy != null ? config.overflowPolicy : writer.overflowPolicy);
+    }
+    
+    // Extra destination for every event the filter accepts, on its own queue and thread
+    public void addSink(String name, EventSink sink, SinkFilter filter) {
+        sinks.add(name, sink, filter);
     }
     
     public void logImportantEvent(ServerPlayerEntity player, String event) {
-        String playerName = player.getName().getString();
-        String timestamp = TIME_FORMAT.format(new Date());
-        String logEntry = String.format("[%s] IMPORTANT: %s", timestamp, event);
-        
-        writeToLog(playerName, logEntry);
-        storeRecentLog(playerName, logEntry);
-        PlayerActionLogger.LOGGER.info("[{}] {}", playerName, event);
+        log(LogEvent.message(player.getName().getString(), event, true));
     }
     
     public void logRegularEvent(ServerPlayerEntity player, String event) {
-        String playerName = player.getName().getString();
-        String timestamp = TIME_FORMAT.format(new Date());
-        String logEntry = String.format("[%s] %s", timestamp, event);
-        
-        writeToLog(playerName, logEntry);
-        storeRecentLog(playerName, logEntry);
+        log(LogEvent.message(player.getName().getString(), event, false));
     }
     
     public void logChatMessage(ServerPlayerEntity player, String message) {
-        String playerName = player.getName().getString();
-        String timestamp = TIME_FORMAT.format(new Date());
-        String logEntry = String.format("[%s] CHAT: %s", timestamp, message);
-        
-        writeToLog(playerName, logEntry);
-        storeRecentLog(playerName, logEntry);
-        PlayerActionLogger.LOGGER.info("[{}] Chat: {}", playerName, message);
+        log(LogEvent.chat(player.getName().getString(), message));
+    }
+    
+    public void logBlockBroken(ServerPlayerEntity player, String blockName, BlockPos pos) {
+        log(LogEvent.block(LogEventType.BLOCK_BREAK, player.getName().getString(), blockName,
+            pos.getX(), pos.getY(), pos.getZ()));
+    }
+    
+    public void logBlockPlaced(ServerPlayerEntity player, String blockName, BlockPos pos) {
+        log(LogEvent.block(LogEventType.BLOCK_PLACE, player.getName().getString(), blockName,
+            pos.getX(), pos.getY(), pos.getZ()));
     }
     
     public void logDamageReceived(ServerPlayerEntity player, String damageSource, float amount) {
-        String playerName = player.getName().getString();
-        String timestamp = TIME_FORMAT.format(new Date());
-        String logEntry = String.format("[%s] Took %.1f damage from %s", timestamp, amount, damageSource);
-        
-        writeToLog(playerName, logEntry);
-        storeRecentLog(playerName, logEntry);
+        log(LogEvent.damage(LogEventType.DAMAGE_TAKEN, player.getName().getString(), damageSource, amount));
     }
     
     public void logDamageDealt(ServerPlayerEntity player, String target, float amount) {
-        String playerName = player.getName().getString();
-        String timestamp = TIME_FORMAT.format(new Date());
-        String logEntry = String.format("[%s] Dealt %.1f damage to %s", timestamp, amount, target);
-        
-        writeToLog(playerName, logEntry);
-        storeRecentLog(playerName, logEntry);
+        log(LogEvent.damage(LogEventType.DAMAGE_DEALT, player.getName().getString(), target, amount));
+    }
+    
+    public void logEntityKill(ServerPlayerEntity player, String entityType) {
+        log(LogEvent.kill(player.getName().getString(), entityType, false));
     }
     
     public void logPlayerKill(ServerPlayerEntity killer, ServerPlayerEntity victim) {
-        String killerName = killer.getName().getString();
-        String victimName = victim.getName().getString();
-        String timestamp = TIME_FORMAT.format(new Date());
-        String logEntry = String.format("[%s] IMPORTANT: Killed player %s", timestamp, victimName);
-        
-        writeToLog(killerName, logEntry);
-        storeRecentLog(killerName, logEntry);
-        PlayerActionLogger.LOGGER.info("[{}] Killed player {}", killerName, victimName);
+        log(LogEvent.kill(killer.getName().getString(), victim.getName().getString(), true));
+    }
+    
+    public void logItemCrafted(ServerPlayerEntity player, String itemName, int count) {
+        log(LogEvent.craft(player.getName().getString(), itemName, count));
+    }
+    
+    public void logVitalStats(ServerPlayerEntity player, float health, float maxHealth, int hunger, int air, int maxAir) {
+        log(LogEvent.vitalStats(player.getName().getString(), health, maxHealth, hunger, air, maxAir,
+            player.getX(), player.getY(), player.getZ()));
     }
     
     public void logMiningUpdate(ServerPlayerEntity player, Map<String, Integer> minedBlocks, long duration, boolean isActive) {
-        String playerName = player.getName().getString();
-        String timestamp = TIME_FORMAT.format(new Date());
-        
-        StringBuilder sb = new StringBuilder();
-        if (isActive) {
-            sb.append("Mining update (").append(duration / 1000).append("s): ");
-        } else {
-            sb.append("Mining session ended (").append(duration / 1000).append("s): ");
-        }
-        
-        minedBlocks.forEach((block, count) -> 
-            sb.append(block).append(" x").append(count).append(", "));
-        if (sb.length() > 2) sb.setLength(sb.length() - 2);
-        
-        String logEntry = String.format("[%s] %s", timestamp, sb.toString());
-        writeToLog(playerName, logEntry);
-        storeRecentLog(playerName, logEntry);
-        
-        if (!isActive) {
-            PlayerActionLogger.LOGGER.info("[{}] {}", playerName, sb.toString());
-        }
+        log(LogEvent.miningSummary(player.getName().getString(), minedBlocks, duration, isActive));
     }
     
     public void logConstructionUpdate(ServerPlayerEntity player, String type, Map<String, Integer> blocks, 
                                      int width, int height, int depth, long duration, boolean isActive) {
-        String playerName = player.getName().getString();
-        String timestamp = TIME_FORMAT.format(new Date());
-        
-        StringBuilder sb = new StringBuilder();
-        
-        if (isActive) {
-            sb.append("Building in progress (").append(duration / 1000).append("s): ");
-            blocks.forEach((block, count) -> 
-                sb.append(block).append(" x").append(count).append(", "));
-            if (sb.length() > 2) sb.setLength(sb.length() - 2);
-        } else {
-            sb.append("Construction completed: ").append(type);
-            sb.append(" ").append(width).append("x").append(height).append("x").append(depth);
-            sb.append(" (").append(duration / 1000).append("s) Blocks: ");
-            blocks.forEach((block, count) -> 
-                sb.append(block).append(" x").append(count).append(", "));
-            if (sb.length() > 2) sb.setLength(sb.length() - 2);
-        }
-        
-        String logEntry = String.format("[%s] %s", timestamp, sb.toString());
-        writeToLog(playerName, logEntry);
-        storeRecentLog(playerName, logEntry);
-        
-        if (!isActive) {
-            PlayerActionLogger.LOGGER.info("[{}] {}", playerName, sb.toString());
-        }
+        log(LogEvent.constructionSummary(player.getName().getString(), type, blocks,
+            width, height, depth, duration, isActive));
     }
     
     public void logSessionEnd(ServerPlayerEntity player, PlayerTracker tracker) {
-        // Just close the writer, no summary needed
-        String playerName = player.getName().getString();
-        PrintWriter writer = playerLogWriters.remove(playerName);
-        if (writer != null) {
-            writer.close();
-        }
+        // Just close the player's logs, no summary needed
+        sinks.closePlayer(player.getName().getString());
     }
     
     public void recordDiscovery(String playerName, String type, String item) {
-        JsonObject playerDiscoveries;
-        if (discoveries.has(playerName)) {
-            playerDiscoveries = discoveries.getAsJsonObject(playerName);
-        } else {
-            playerDiscoveries = new JsonObject();
-            discoveries.add(playerName, playerDiscoveries);
-        }
-        
-        JsonArray typeArray;
-        if (playerDiscoveries.has(type)) {
-            typeArray = playerDiscoveries.getAsJsonArray(type);
-        } else {
-            typeArray = new JsonArray();
-            playerDiscoveries.add(type, typeArray);
-        }
-        
-        boolean found = false;
-        for (int i = 0; i < typeArray.size(); i++) {
-            if (typeArray.get(i).getAsString().equals(item)) {
-                found = true;
-                break;
-            }
-        }
-        
-        if (!found) {
-            typeArray.add(item);
-            saveDiscoveries();
-        }
+        discoveries.add(playerName, type, item);
     }
     
     public boolean hasDiscovered(String playerName, String type, String item) {
-        if (!discoveries.has(playerName)) return false;
-        
-        JsonObject playerDiscoveries = discoveries.getAsJsonObject(playerName);
-        if (!playerDiscoveries.has(type)) return false;
-        
-        JsonArray typeArray = playerDiscoveries.getAsJsonArray(type);
-        for (int i = 0; i < typeArray.size(); i++) {
-            if (typeArray.get(i).getAsString().equals(item)) {
-                return true;
-            }
-        }
-        return false;
-    }
-    
-    private void storeRecentLog(String playerName, String logEntry) {
-        List<String> recent = recentLogs.computeIfAbsent(playerName, k -> new ArrayList<>());
-        recent.add(logEntry);
-        if (recent.size() > 50) {
-            recent.remove(0);
-        }
+        return discoveries.has(playerName, type, item);
     }
     
-    private void writeToLog(String playerName, String content) {
-        try {
-            PrintWriter writer = getOrCreateWriter(playerName);
-            writer.println(content);
-            writer.flush();
-        } catch (IOException e) {
-            PlayerActionLogger.LOGGER.error("Failed to write log for " + playerName, e);
-        }
+    private void log(LogEvent event) {
+        sinks.submit(event);
+        storeRecentLog(event);
     }
     
-    private PrintWriter getOrCreateWriter(String playerName) throws IOException {
-        if (!playerLogWriters.containsKey(playerName)) {
-            String filename = String.format("%s/%s_latest.log", LOG_DIR, playerName);
-            
-            // Clear the file on new session (false = no append)
-            FileWriter fileWriter = new FileWriter(filename, false);
-            PrintWriter writer = new PrintWriter(new BufferedWriter(fileWriter));
-            
-            playerLogWriters.put(playerName, writer);
-        }
-        return playerLogWriters.get(playerName);
+    private void storeRecentLog(LogEvent event) {
+        recentLogs.computeIfAbsent(event.playerName, k -> new RingBuffer<>(RECENT_LOG_CAPACITY))
+            .add(event, event.time);
     }
     
+    // Read-only view of the last logged events, rendered when read
     public List<String> getRecentLogs(String playerName) {
-        return recentLogs.getOrDefault(playerName, new ArrayList<>());
+        RingBuffer<LogEvent> recent = recentLogs.get(playerName);
+        if (recent == null) return Collections.emptyList();
+        
+        List<LogEvent> events = recent.view();
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return LogRenderer.forCurrentThread().render(events.get(index));
+            }
+            
+            @Override
+            public int size() {
+                return events.size();
+            }
+        };
     }
     
     public void cleanup() {
-        playerLogWriters.values().forEach(PrintWriter::close);
-        playerLogWriters.clear();
-        saveDiscoveries();
+        sinks.close();
+        if (archiver != null) {
+            archiver.close();
+        }
+        if (streamServer != null) {
+            streamServer.close();
+        }
+        discoveries.close();
     }
-}
\ No newline at end of file
+}
@@ -1,37 +1,51 @@
 package com.yourmod.playeractionlogger;
 
-import net.minecraft.block.BlockState;
+import com.yourmod.playeractionlogger.util.IntLongCounterMap;
+import com.yourmod.playeractionlogger.util.WindowedCounter;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.util.math.BlockPos;
 
 import java.util.*;
 
 public class MiningTracker {
-    private final Map<String, Integer> currentSessionBlocks = new HashMap<>();
-    private final Map<String, Integer> last5SecondsBlocks = new HashMap<>();
+    private final SymbolTable symbols;
+    // Keyed by block symbol, names are only resolved for the update
+    // Per second over 5 minutes, reset with each mining session
+    private final WindowedCounter blocks = new WindowedCounter(1000, 300);
+    // Per minute over an hour, across sessions
+    private final WindowedCounter ores = new WindowedCounter(60000, 60);
+    // First bucket of blocks not reported yet
+    private long nextReportBucket = 0;
     private long miningStartTime = 0;
     private long lastUpdateTime = 0;
     private long lastBlockBreakTime = 0;
     private boolean isMining = false;
     private static final long MINING_TIMEOUT = 2000; // 2 seconds to consider mining stopped
     private static final long UPDATE_INTERVAL = 5000; // 5 seconds for updates
+    private static final long MINUTE = 60000;
+    private static final long HOUR = 60 * MINUTE;
     
-    public void onBlockBroken(BlockState state) {
-        String blockName = state.getBlock().getName().getString();
+    public MiningTracker(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+    
+    public void onBlockBroken(int block, boolean isOre) {
         long currentTime = System.currentTimeMillis();
         
         // Start or continue mining session
         if (!isMining) {
             miningStartTime = currentTime;
-            currentSessionBlocks.clear();
-            last5SecondsBlocks.clear();
+            blocks.reset();
+            nextReportBucket = blocks.bucketOf(currentTime);
             isMining = true;
             lastUpdateTime = currentTime;
         }
         
         // Track blocks
-        currentSessionBlocks.put(blockName, currentSessionBlocks.getOrDefault(blockName, 0) + 1);
-        last5SecondsBlocks.put(blockName, last5SecondsBlocks.getOrDefault(blockName, 0) + 1);
+        blocks.increment(block, currentTime);
+        if (isOre) {
+            ores.increment(block, currentTime);
+        }
         lastBlockBreakTime = currentTime;
     }
     
@@ -60,17 +74,33 @@ public class MiningTracker {
         
         Map<String, Integer> blocksToReport;
         if (isActive) {
-            // Report last 5 seconds
-            blocksToReport = new HashMap<>(last5SecondsBlocks);
-            last5SecondsBlocks.clear();
+            // Report the whole seconds since the last update, the current one goes in the next
+            long currentBucket = blocks.bucketOf(currentTime);
+            blocksToReport = symbols.toNames(
+                blocks.collect(nextReportBucket, currentBucket, new IntLongCounterMap()), new HashMap<>());
+            nextReportBucket = currentBucket;
             lastUpdateTime = currentTime;
         } else {
             // Report entire session
-            blocksToReport = new HashMap<>(currentSessionBlocks);
+            blocksToReport = symbols.toNames(blocks.getSession(), new HashMap<>());
             isMining = false;
         }
         
-        return new MiningUpdate(blocksToReport, duration, isActive);
+        return new MiningUpdate(blocksToReport, duration, isActive,
+            getBlocksPerMinute(currentTime), getOresPerHour(currentTime));
+    }
+    
+    // Over the last minute of the current session
+    public double getBlocksPerMinute(long time) {
+        return blocks.ratePerMinute(MINUTE, time);
+    }
+    
+    public double getOresPerHour(long time) {
+        return ores.ratePerMinute(HOUR, time) * 60;
+    }
+    
+    public long getBlocksInLast(long windowMillis) {
+        return blocks.totalInLast(windowMillis, System.currentTimeMillis());
     }
     
     public boolean isActiveMining() {
@@ -81,11 +111,16 @@ public class MiningTracker {
         public final Map<String, Integer> blocks;
         public final long duration;
         public final boolean isActive;
+        public final double blocksPerMinute;
+        public final double oresPerHour;
         
-        public MiningUpdate(Map<String, Integer> blocks, long duration, boolean isActive) {
+        public MiningUpdate(Map<String, Integer> blocks, long duration, boolean isActive,
+                            double blocksPerMinute, double oresPerHour) {
             this.blocks = blocks;
             this.duration = duration;
             this.isActive = isActive;
+            this.blocksPerMinute = blocksPerMinute;
+            this.oresPerHour = oresPerHour;
         }
     }
 }
\ No newline at end of file
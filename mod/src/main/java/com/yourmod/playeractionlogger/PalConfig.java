@@ -0,0 +1,192 @@
+package com.yourmod.playeractionlogger;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.yourmod.playeractionlogger.log.AsyncLogWriter;
+import com.yourmod.playeractionlogger.log.LogEventType;
+import net.fabricmc.loader.api.FabricLoader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+public class PalConfig {
+    private static final String CONFIG_DIR = "playeractionlogger";
+    private static final String CONFIG_FILE = "config.json";
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    
+    public WriterConfig writer = new WriterConfig();
+    public StorageConfig storage = new StorageConfig();
+    public StreamConfig stream = new StreamConfig();
+    public ArchiveConfig archive = new ArchiveConfig();
+    public SinksConfig sinks = new SinksConfig();
+    public TickConfig tick = new TickConfig();
+    public ClassifyConfig classify = new ClassifyConfig();
+    
+    public static class WriterConfig {
+        // Max events waiting for each sink's writer thread
+        public int queueCapacity = 4096;
+        // Flush as soon as one of these thresholds is reached
+        public int flushBytes = 8192;
+        public int flushEvents = 64;
+        public long flushLatencyMillis = 250;
+        // What to do with a new event when a sink's queue is full
+        public AsyncLogWriter.OverflowPolicy overflowPolicy = AsyncLogWriter.OverflowPolicy.DROP_REGULAR;
+        // Also write a .journal file, the compact binary form of the log, next to each segment
+        public boolean binaryJournal = true;
+    }
+    
+    public static class StorageConfig {
+        // Size of each memory-mapped log segment
+        public int segmentBytes = 4 * 1024 * 1024;
+        // Start a new segment after this long even if the current one isn't full, 0 to disable
+        public long rollIntervalMinutes = 60;
+        // Oldest segments are deleted once a player's logs exceed either limit, 0 to disable
+        public long retentionBytes = 512L * 1024 * 1024;
+        public long retentionDays = 30;
+    }
+    
+    public static class StreamConfig {
+        // Push new log lines to local subscribers, see EventStreamServer
+        public boolean enabled = false;
+        // Unix domain socket at socketPath (relative to the log directory) instead of a loopback TCP port
+        public boolean unixSocket = false;
+        public String socketPath = "pal.sock";
+        public int port = 25590;
+        // Lines buffered per subscriber before it's considered too slow and disconnected
+        public int subscriberBuffer = 1024;
+        public int maxSubscribers = 8;
+    }
+    
+    public static class ArchiveConfig {
+        // Compress every finished segment into logs/player_actions/archive/<player>/, kept after retention
+        public boolean enabled = true;
+        // Uncompressed size of each independently readable frame
+        public int frameBytes = 64 * 1024;
+        // 1 (fastest) to 9 (smallest)
+        public int compressionLevel = 6;
+    }
+    
+    public static class TickConfig {
+        // PAL's share of each 50 ms client tick, tasks that don't fit wait for the next tick
+        public long budgetNanos = 2_000_000;
+        // How often each tracker task runs, in ticks, and how long it's expected to take
+        public int statsPeriod = 1;
+        public long statsBudgetNanos = 50_000;
+        public int heldItemPeriod = 2;
+        public long heldItemBudgetNanos = 50_000;
+        public int visionPeriod = 4;
+        public long visionBudgetNanos = 1_000_000;
+        public int summaryPeriod = 10;
+        public long summaryBudgetNanos = 100_000;
+        public int cleanupPeriod = 20;
+        public long cleanupBudgetNanos = 50_000;
+        // Log the per-task timings this often, 0 to disable
+        public int timingsLogMinutes = 0;
+    }
+    
+    public static class ClassifyConfig {
+        // What puts a block or item in each category, see Classifier
+        public Map<Classifier.Category, CategoryConfig> categories = defaultCategories();
+    }
+    
+    public static class CategoryConfig {
+        // Registry tags, "c:ores" or "minecraft:diamond_ores"
+        public List<String> tags = new ArrayList<>();
+        // Registry paths, * matching any run of characters: "*_ore", "elytra"
+        public List<String> patterns = new ArrayList<>();
+        
+        static CategoryConfig of(List<String> tags, List<String> patterns) {
+            CategoryConfig config = new CategoryConfig();
+            config.tags = new ArrayList<>(tags);
+            config.patterns = new ArrayList<>(patterns);
+            return config;
+        }
+    }
+    
+    private static Map<Classifier.Category, CategoryConfig> defaultCategories() {
+        Map<Classifier.Category, CategoryConfig> categories = new EnumMap<>(Classifier.Category.class);
+        categories.put(Classifier.Category.ORE, CategoryConfig.of(
+            List.of("c:ores", "minecraft:coal_ores", "minecraft:iron_ores", "minecraft:copper_ores",
+                "minecraft:gold_ores", "minecraft:redstone_ores", "minecraft:lapis_ores",
+                "minecraft:diamond_ores", "minecraft:emerald_ores"),
+            List.of("*_ore", "ancient_debris")));
+        categories.put(Classifier.Category.VALUABLE_ORE, CategoryConfig.of(
+            List.of("minecraft:diamond_ores", "minecraft:emerald_ores"),
+            List.of("ancient_debris")));
+        categories.put(Classifier.Category.IMPORTANT_CRAFT, CategoryConfig.of(
+            List.of(),
+            List.of("*diamond*", "*netherite*", "*enchant*", "*golden_apple*", "*totem*", "elytra")));
+        categories.put(Classifier.Category.IMPORTANT_USE, CategoryConfig.of(
+            List.of(),
+            List.of("*potion*", "ender_pearl", "ender_eye", "*totem*", "*bucket*", "flint_and_steel",
+                "*golden_apple*")));
+        return categories;
+    }
+    
+    public static class SinksConfig {
+        // Segmented text log, with the binary journal, the event stream and archiving behind it
+        public SinkConfig text = new SinkConfig();
+        // Game log (SLF4J), only a mirror so it never makes the game wait
+        public SinkConfig console = SinkConfig.mirror();
+    }
+    
+    public static class SinkConfig {
+        public boolean enabled = true;
+        // Only events marked important: chat, player kills, finished sessions, ...
+        public boolean importantOnly = false;
+        // Event types to keep, empty for all
+        public List<LogEventType> types = new ArrayList<>();
+        // 0 to use writer.queueCapacity
+        public int queueCapacity = 0;
+        // Null to use writer.overflowPolicy
+        public AsyncLogWriter.OverflowPolicy overflowPolicy = null;
+        
+        static SinkConfig mirror() {
+            SinkConfig config = new SinkConfig();
+            config.importantOnly = true;
+            config.overflowPolicy = AsyncLogWriter.OverflowPolicy.DROP;
+            return config;
+        }
+    }
+    
+    public static Path getConfigDir() {
+        return FabricLoader.getInstance().getConfigDir().resolve(CONFIG_DIR);
+    }
+    
+    public static PalConfig load() {
+        Path file = getConfigDir().resolve(CONFIG_FILE);
+        PalConfig config = null;
+        
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                config = GSON.fromJson(reader, PalConfig.class);
+            } catch (IOException | JsonParseException e) {
+                PlayerActionLogger.LOGGER.error("Failed to load config, using defaults", e);
+                return new PalConfig();
+            }
+        }
+        if (config == null) {
+            config = new PalConfig();
+        }
+        
+        // Write back so new options show up in existing files
+        try {
+            Files.createDirectories(file.getParent());
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                GSON.toJson(config, writer);
+            }
+        } catch (IOException e) {
+            PlayerActionLogger.LOGGER.error("Failed to save config", e);
+        }
+        return config;
+    }
+}
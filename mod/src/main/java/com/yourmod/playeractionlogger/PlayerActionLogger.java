@@ -1,13 +1,25 @@
 package com.yourmod.playeractionlogger;
 
+import com.yourmod.playeractionlogger.event.EventBus;
+import com.yourmod.playeractionlogger.event.GameEvent;
+import com.yourmod.playeractionlogger.rules.RuleEngine;
 import net.minecraft.util.ActionResult;
 import net.minecraft.util.TypedActionResult;
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLifecycleEvents;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.fabricmc.fabric.api.client.message.v1.ClientSendMessageEvents;
+import net.fabricmc.fabric.api.entity.event.v1.ServerLivingEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.CommonLifecycleEvents;
 import net.fabricmc.fabric.api.event.player.*;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.ChestBlock;
+import net.minecraft.block.enums.ChestType;
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.inventory.Inventory;
 import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.WorldSavePath;
+import net.minecraft.util.math.BlockPos;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -16,33 +28,66 @@ public class PlayerActionLogger implements ClientModInitializer {
     public static final Logger LOGGER = LoggerFactory.getLogger(MOD_ID);
     
     private static final int VITAL_STATS_INTERVAL = 100; // 5 secondes (20 ticks/sec * 5)
+    private static final int BLOCK_CHANGE_HISTORY = 4096;
     
+    private static PalConfig config;
     private static PlayerTracker clientTracker;
     private static ActionAnalyzer actionAnalyzer;
     private static LogManager logManager;
+    private static EventBus eventBus;
+    private static SymbolTable symbols;
+    private static Classifier classifier;
+    private static ContainerIndex containerIndex;
     private static MinecraftClient client;
     private static int vitalStatsTickCounter = 0;
+    private static int ruleStatsTickCounter = 0;
+    // Fed by ServerWorldMixin from the first world tick on, before the client is initialized
+    private static final BlockChangeLog blockChangeLog = new BlockChangeLog(BLOCK_CHANGE_HISTORY);
     
     @Override
     public void onInitializeClient() {
         LOGGER.info("Initializing Player Action Logger (Client Side)");
         
         client = MinecraftClient.getInstance();
-        actionAnalyzer = new ActionAnalyzer();
-        logManager = new LogManager();
+        config = PalConfig.load();
+        logManager = new LogManager(config);
+        symbols = new SymbolTable();
+        classifier = new Classifier(symbols, config.classify.categories);
+        classifier.rebuild();
+        // Tags are bound with the world's data, and change with data packs
+        CommonLifecycleEvents.TAGS_LOADED.register((registries, client) -> classifier.rebuild());
+        actionAnalyzer = new ActionAnalyzer(logManager, symbols,
+            RuleEngine.load(PalConfig.getConfigDir().resolve("rules.json"), symbols, classifier));
+        eventBus = new EventBus();
         
+        registerSubscribers();
         registerClientEvents();
         
+        // Drain pending events and log writes before the game exits
+        ClientLifecycleEvents.CLIENT_STOPPING.register(minecraft -> {
+            eventBus.drain();
+            closeContainerIndex();
+            logManager.cleanup();
+        });
+        
         // Client tick handler optimisé
         ClientTickEvents.END_CLIENT_TICK.register(minecraft -> {
+            // Events from the callbacks since last tick, before the tracker looks at the player
+            eventBus.drain();
+            
             if (minecraft.player != null && minecraft.world != null) {
                 // Créer le tracker si nécessaire
                 if (clientTracker == null) {
                     ServerPlayerEntity serverPlayer = getServerPlayer();
                     if (serverPlayer != null) {
-                        clientTracker = new PlayerTracker(serverPlayer);
+                        clientTracker = new PlayerTracker(serverPlayer, logManager, symbols, classifier, config.tick);
                     }
                 }
+                if (containerIndex == null && client.getServer() != null) {
+                    // Kept with the world, positions mean nothing in another save
+                    containerIndex = new ContainerIndex(
+                        client.getServer().getSavePath(WorldSavePath.ROOT).resolve(MOD_ID), symbols);
+                }
                 
                 if (clientTracker != null) {
                     clientTracker.tick();
@@ -53,11 +98,21 @@ public class PlayerActionLogger implements ClientModInitializer {
                         sendVitalStats();
                         vitalStatsTickCounter = 0;
                     }
+                    
+                    // Rules are shared by all players, their stats go with the trackers' timings but only once
+                    int ruleStatsInterval = config.tick.timingsLogMinutes * 60 * 20;
+                    if (ruleStatsInterval > 0 && ++ruleStatsTickCounter >= ruleStatsInterval) {
+                        LOGGER.info("Rules: {}", actionAnalyzer.getRules().formatStats());
+                        ruleStatsTickCounter = 0;
+                    }
                 }
             } else if (clientTracker != null) {
                 // Cleanup quand le joueur se déconnecte
+                logManager.logSessionEnd(clientTracker.getPlayer(), clientTracker);
                 clientTracker = null;
                 vitalStatsTickCounter = 0;
+                ruleStatsTickCounter = 0;
+                closeContainerIndex();
             }
         });
     }
@@ -71,22 +126,81 @@ public class PlayerActionLogger implements ClientModInitializer {
             int air = serverPlayer.getAir();
             int maxAir = serverPlayer.getMaxAir();
             
-            String vitalStats = String.format(
-                "Vital Stats - Health: %.1f/%.1f | Hunger: %d/20 | Air: %d/%d | Pos: %.1f, %.1f, %.1f",
-                health, maxHealth, hunger, air, maxAir,
-                serverPlayer.getX(), serverPlayer.getY(), serverPlayer.getZ()
-            );
-            
-            logManager.logRegularEvent(serverPlayer, vitalStats);
+            logManager.logVitalStats(serverPlayer, health, maxHealth, hunger, air, maxAir);
         }
     }
     
+    // Everything that reacts to game events, run on the client thread by eventBus.drain()
+    private void registerSubscribers() {
+        eventBus.subscribe(GameEvent.ChatSent.class, "logger",
+            e -> logManager.logChatMessage(e.player(), e.message()));
+        eventBus.subscribe(GameEvent.CommandSent.class, "logger",
+            e -> logManager.logRegularEvent(e.player(), "Command: /" + e.command()));
+        
+        eventBus.subscribe(GameEvent.BlockBroken.class, "tracker",
+            e -> getOrCreateTracker(e.player()).onBlockBreak(e.pos(), e.state()));
+        eventBus.subscribe(GameEvent.BlockBroken.class, "analyzer",
+            e -> actionAnalyzer.analyzeBlockBreak(e.player(), e.pos(), e.state(), e.time(), getOrCreateTracker(e.player())));
+        eventBus.subscribe(GameEvent.BlockPlaced.class, "tracker",
+            e -> getOrCreateTracker(e.player()).onBlockPlace(e.pos(), e.state()));
+        eventBus.subscribe(GameEvent.BlockPlaced.class, "analyzer",
+            e -> actionAnalyzer.analyzeBlockPlace(e.player(), e.pos(), e.time(), getOrCreateTracker(e.player())));
+        
+        eventBus.subscribe(GameEvent.EntityInteracted.class, "tracker",
+            e -> getOrCreateTracker(e.player()).onEntityInteraction(e.entity(), e.heldStack()));
+        eventBus.subscribe(GameEvent.EntityInteracted.class, "analyzer",
+            e -> actionAnalyzer.analyzeEntityInteraction(e.player(), e.entity(), e.heldStack(), e.time(),
+                getOrCreateTracker(e.player())));
+        eventBus.subscribe(GameEvent.ItemUsed.class, "tracker",
+            e -> getOrCreateTracker(e.player()).onItemUse(e.stack()));
+        eventBus.subscribe(GameEvent.ItemUsed.class, "analyzer",
+            e -> actionAnalyzer.analyzeItemUsed(e.player(), e.stack(), e.time()));
+        eventBus.subscribe(GameEvent.ItemCrafted.class, "tracker",
+            e -> getOrCreateTracker(e.player()).onItemCrafted(e.recipe(), e.result()));
+        eventBus.subscribe(GameEvent.ItemCrafted.class, "analyzer",
+            e -> actionAnalyzer.analyzeItemCrafted(e.player(), e.result(), e.time()));
+        
+        eventBus.subscribe(GameEvent.DamageTaken.class, "tracker",
+            e -> getOrCreateTracker(e.player()).onDamageReceived(e.source(), e.amount()));
+        eventBus.subscribe(GameEvent.DamageTaken.class, "analyzer",
+            e -> actionAnalyzer.analyzeDamageTaken(e.player(), e.source(), e.amount(), e.health(), e.time()));
+        eventBus.subscribe(GameEvent.DamageDealt.class, "tracker",
+            e -> getOrCreateTracker(e.player()).onDamageDealt(e.target(), e.amount()));
+        eventBus.subscribe(GameEvent.EntityKilled.class, "tracker",
+            e -> getOrCreateTracker(e.player()).onEntityKill(e.entity()));
+        eventBus.subscribe(GameEvent.EntityKilled.class, "analyzer",
+            e -> actionAnalyzer.analyzeEntityKill(e.player(), e.entity(), e.time()));
+        eventBus.subscribe(GameEvent.PlayerDied.class, "tracker",
+            e -> getOrCreateTracker(e.player()).onPlayerDeath(e.source()));
+        
+        eventBus.subscribe(GameEvent.ContainerOpened.class, "tracker",
+            e -> getOrCreateTracker(e.player()).onInventoryOpen(e.handler()));
+        eventBus.subscribe(GameEvent.SlotChanged.class, "tracker",
+            e -> getOrCreateTracker(e.player()).onSlotChange(e.slot(), e.newStack(), e.oldStack(), e.playerSlot()));
+        eventBus.subscribe(GameEvent.ContainerClosed.class, "tracker",
+            e -> getOrCreateTracker(e.player()).onInventoryClose());
+        
+        eventBus.subscribe(GameEvent.ContainerUsed.class, "index", e -> {
+            if (containerIndex != null) containerIndex.onContainerUsed(e.dimension(), e.pos(), e.otherHalf(), e.inventory());
+        });
+        eventBus.subscribe(GameEvent.ContainerOpened.class, "index", e -> {
+            if (containerIndex != null) containerIndex.onContainerOpened(e.handler(), e.contents());
+        });
+        eventBus.subscribe(GameEvent.SlotChanged.class, "index", e -> {
+            if (containerIndex != null && !e.playerSlot()) containerIndex.onSlotChanged(e.slot(), e.newStack(), e.oldStack());
+        });
+        eventBus.subscribe(GameEvent.ContainerClosed.class, "index", e -> {
+            if (containerIndex != null) containerIndex.onContainerClosed();
+        });
+    }
+    
+    // The callbacks only capture what happened, the work is done by the subscribers
     private void registerClientEvents() {
         // Chat messages
         ClientSendMessageEvents.ALLOW_CHAT.register((message) -> {
             ServerPlayerEntity serverPlayer = getServerPlayer();
             if (serverPlayer != null) {
-                logManager.logChatMessage(serverPlayer, message);
+                eventBus.publish(new GameEvent.ChatSent(serverPlayer, message));
             }
             return true;
         });
@@ -95,7 +209,7 @@ public class PlayerActionLogger implements ClientModInitializer {
         ClientSendMessageEvents.ALLOW_COMMAND.register((command) -> {
             ServerPlayerEntity serverPlayer = getServerPlayer();
             if (serverPlayer != null) {
-                logManager.logRegularEvent(serverPlayer, "Command: /" + command);
+                eventBus.publish(new GameEvent.CommandSent(serverPlayer, command));
             }
             return true;
         });
@@ -105,8 +219,8 @@ public class PlayerActionLogger implements ClientModInitializer {
             if (isClientPlayer(player) && clientTracker != null) {
                 ServerPlayerEntity serverPlayer = getServerPlayer();
                 if (serverPlayer != null) {
-                    clientTracker.onBlockBreak(pos, state);
-                    actionAnalyzer.analyzeBlockBreak(serverPlayer, pos, state, clientTracker);
+                    eventBus.publish(new GameEvent.BlockBroken(serverPlayer, pos.toImmutable(), state,
+                        System.currentTimeMillis()));
                 }
             }
         });
@@ -116,8 +230,26 @@ public class PlayerActionLogger implements ClientModInitializer {
             if (isClientPlayer(player) && clientTracker != null) {
                 ServerPlayerEntity serverPlayer = getServerPlayer();
                 if (serverPlayer != null) {
-                    clientTracker.onEntityInteraction(entity);
-                    actionAnalyzer.analyzeEntityInteraction(serverPlayer, entity, hand, clientTracker);
+                    eventBus.publish(new GameEvent.EntityInteracted(serverPlayer, entity, hand,
+                        player.getStackInHand(hand).copy(), System.currentTimeMillis()));
+                }
+            }
+            return ActionResult.PASS;
+        });
+        
+        // Containers, server side only: that's where the block entity holding the items is
+        UseBlockCallback.EVENT.register((player, world, hand, hitResult) -> {
+            if (!world.isClient() && isClientPlayer(player) && clientTracker != null) {
+                BlockPos pos = hitResult.getBlockPos();
+                ServerPlayerEntity serverPlayer = getServerPlayer();
+                if (serverPlayer != null && world.getBlockEntity(pos) instanceof Inventory inventory) {
+                    BlockState state = world.getBlockState(pos);
+                    BlockPos otherHalf = null;
+                    if (state.getBlock() instanceof ChestBlock && state.get(ChestBlock.CHEST_TYPE) != ChestType.SINGLE) {
+                        otherHalf = pos.offset(ChestBlock.getFacing(state)).toImmutable();
+                    }
+                    eventBus.publish(new GameEvent.ContainerUsed(serverPlayer,
+                        world.getRegistryKey().getValue().toString(), pos.toImmutable(), otherHalf, inventory));
                 }
             }
             return ActionResult.PASS;
@@ -126,10 +258,27 @@ public class PlayerActionLogger implements ClientModInitializer {
         // Item usage
         UseItemCallback.EVENT.register((player, world, hand) -> {
             if (isClientPlayer(player) && clientTracker != null) {
-                clientTracker.onItemUse(player.getStackInHand(hand));
+                ServerPlayerEntity serverPlayer = getServerPlayer();
+                if (serverPlayer != null) {
+                    eventBus.publish(new GameEvent.ItemUsed(serverPlayer, player.getStackInHand(hand).copy(),
+                        System.currentTimeMillis()));
+                }
             }
             return TypedActionResult.pass(player.getStackInHand(hand));
         });
+        
+        // Kills and deaths
+        ServerLivingEntityEvents.AFTER_DEATH.register((entity, damageSource) -> {
+            // Only our own player: other players of a LAN world have no tracker
+            if (entity instanceof ServerPlayerEntity serverPlayer && isClientPlayer(serverPlayer)
+                    && clientTracker != null) {
+                eventBus.publish(new GameEvent.PlayerDied(serverPlayer, damageSource));
+            }
+            if (damageSource.getAttacker() instanceof ServerPlayerEntity attacker && isClientPlayer(attacker)
+                    && clientTracker != null) {
+                eventBus.publish(new GameEvent.EntityKilled(attacker, entity, System.currentTimeMillis()));
+            }
+        });
     }
     
     private static ServerPlayerEntity getServerPlayer() {
@@ -147,11 +296,22 @@ public class PlayerActionLogger implements ClientModInitializer {
         if (client.player != null && player != null && 
             player.getUuid().equals(client.player.getUuid())) {
             if (clientTracker == null) {
-                clientTracker = new PlayerTracker(player);
+                clientTracker = new PlayerTracker(player, logManager, symbols, classifier, config.tick);
             }
             return clientTracker;
         }
-        return new PlayerTracker(player);
+        return new PlayerTracker(player, logManager, symbols, classifier, config.tick);
+    }
+    
+    private static void closeContainerIndex() {
+        if (containerIndex != null) {
+            containerIndex.close();
+            containerIndex = null;
+        }
+    }
+    
+    public static PalConfig getConfig() {
+        return config;
     }
     
     public static LogManager getLogManager() {
@@ -161,4 +321,25 @@ public class PlayerActionLogger implements ClientModInitializer {
     public static ActionAnalyzer getActionAnalyzer() {
         return actionAnalyzer;
     }
-}
\ No newline at end of file
+    
+    public static EventBus getEventBus() {
+        return eventBus;
+    }
+    
+    public static Classifier getClassifier() {
+        return classifier;
+    }
+    
+    public static SymbolTable getSymbols() {
+        return symbols;
+    }
+    
+    // Null outside a world
+    public static ContainerIndex getContainerIndex() {
+        return containerIndex;
+    }
+    
+    public static BlockChangeLog getBlockChangeLog() {
+        return blockChangeLog;
+    }
+}
@@ -3,6 +3,7 @@ package com.yourmod.playeractionlogger;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.entity.attribute.EntityAttributes;
 import com.google.gson.JsonObject;
+import com.yourmod.playeractionlogger.util.RingBuffer;
 
 import java.util.*;
 
@@ -23,7 +24,7 @@ public class PlayerStats {
     private int totalKills;
     private Map<String, Integer> killsByType;
     private int deaths;
-    private List<String> deathCauses;
+    private final RingBuffer<String> deathCauses;
     
     // Resource stats
     private long totalBlocksBroken;
@@ -37,7 +38,7 @@ public class PlayerStats {
     
     public PlayerStats() {
         this.killsByType = new HashMap<>();
-        this.deathCauses = new ArrayList<>();
+        this.deathCauses = new RingBuffer<>(10);
         this.minedOres = new HashMap<>();
         this.sessionStartTime = System.currentTimeMillis();
     }
@@ -90,9 +91,6 @@ public class PlayerStats {
     public void recordDeath(String cause) {
         deaths++;
         deathCauses.add(cause);
-        if (deathCauses.size() > 10) {
-            deathCauses.remove(0);
-        }
     }
     
     public void recordMinedOre(String oreType) {
@@ -12,11 +12,17 @@ import net.minecraft.recipe.Recipe;
 import net.minecraft.screen.ScreenHandler;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.util.math.BlockPos;
+import com.yourmod.playeractionlogger.util.IntLongCounterMap;
+import com.yourmod.playeractionlogger.util.RingBuffer;
+import com.yourmod.playeractionlogger.util.TickScheduler;
 
 import java.util.*;
 
 public class PlayerTracker {
     private ServerPlayerEntity player;
+    private final LogManager logManager;
+    private final SymbolTable symbols;
+    private final Classifier classifier;
     private final PlayerStats stats;
     private final VisionTracker visionTracker;
     private final MiningTracker miningTracker;
@@ -24,56 +30,83 @@ public class PlayerTracker {
     private final InventoryTracker inventoryTracker;
     private final Set<String> discoveredEntities;
     private final Set<String> discoveredOres;
-    private final Map<String, Integer> actionCounts;
+    private final long[] actionCounts = new long[Action.values().length];
     private final Map<String, Integer> deathCauses;
-    private final Map<String, Integer> craftedItems;
-    private final Map<String, Integer> blockTypesMined;
-    private final Map<String, Integer> blockTypesPlaced;
-    private final Map<String, Integer> itemsUsed;
-    private final List<TimedAction> recentActions;
+    // Keyed by block or item symbol
+    private final IntLongCounterMap craftedItems;
+    private final IntLongCounterMap blockTypesMined;
+    private final IntLongCounterMap blockTypesPlaced;
+    private final IntLongCounterMap itemsUsed;
+    private final RingBuffer<TimedAction> recentActions;
+    private final TickScheduler scheduler;
     private long lastUpdateTime;
-    private String currentHeldItem = "";
+    // Item symbol, -1 for an empty hand
+    private int currentHeldItem = Integer.MIN_VALUE;
     private Entity currentlyLookingAt = null;
     private Set<Entity> recentlyBredAnimals = new HashSet<>();
     
+    // Entity type registry paths
     private static final Set<String> SKIP_FIRST_ENCOUNTER = Set.of(
-        "Item", "Falling Block", "Experience Orb", "Arrow", 
-        "Trident", "Snowball", "Egg", "Ender Pearl", "Firework Rocket",
-        "Item Frame", "Painting", "Armor Stand", "Boat", "Minecart"
+        "item", "falling_block", "experience_orb", "arrow", 
+        "trident", "snowball", "egg", "ender_pearl", "firework_rocket",
+        "item_frame", "painting", "armor_stand", "boat", "minecart"
     );
     
-    public PlayerTracker(ServerPlayerEntity player) {
+    public PlayerTracker(ServerPlayerEntity player, LogManager logManager, SymbolTable symbols,
+                         Classifier classifier, PalConfig.TickConfig tickConfig) {
         this.player = player;
+        this.logManager = logManager;
+        this.symbols = symbols;
+        this.classifier = classifier;
         this.stats = new PlayerStats();
-        this.visionTracker = new VisionTracker();
-        this.miningTracker = new MiningTracker();
-        this.constructionTracker = new ConstructionTracker();
-        this.inventoryTracker = new InventoryTracker();
+        this.visionTracker = new VisionTracker(symbols);
+        this.miningTracker = new MiningTracker(symbols);
+        this.constructionTracker = new ConstructionTracker(symbols);
+        this.inventoryTracker = new InventoryTracker(symbols);
         this.discoveredEntities = new HashSet<>();
         this.discoveredOres = new HashSet<>();
-        this.actionCounts = new HashMap<>();
         this.deathCauses = new HashMap<>();
-        this.craftedItems = new HashMap<>();
-        this.blockTypesMined = new HashMap<>();
-        this.blockTypesPlaced = new HashMap<>();
-        this.itemsUsed = new HashMap<>();
-        this.recentActions = new ArrayList<>();
+        this.craftedItems = new IntLongCounterMap();
+        this.blockTypesMined = new IntLongCounterMap();
+        this.blockTypesPlaced = new IntLongCounterMap();
+        this.itemsUsed = new IntLongCounterMap();
+        this.recentActions = new RingBuffer<>(100);
         this.lastUpdateTime = System.currentTimeMillis();
+        
+        this.scheduler = new TickScheduler(tickConfig.budgetNanos);
+        scheduler.add("stats", tickConfig.statsPeriod, tickConfig.statsBudgetNanos, () -> stats.update(player));
+        scheduler.add("held_item", tickConfig.heldItemPeriod, tickConfig.heldItemBudgetNanos, this::tickHeldItem);
+        scheduler.add("vision", tickConfig.visionPeriod, tickConfig.visionBudgetNanos, this::tickVision);
+        scheduler.add("summaries", tickConfig.summaryPeriod, tickConfig.summaryBudgetNanos, this::tickSummaries);
+        scheduler.add("cleanup", tickConfig.cleanupPeriod, tickConfig.cleanupBudgetNanos,
+            () -> recentlyBredAnimals.removeIf(animal -> !animal.isAlive()));
+        if (tickConfig.timingsLogMinutes > 0) {
+            scheduler.add("timings", tickConfig.timingsLogMinutes * 60 * 20, 0,
+                () -> {
+                    PlayerActionLogger.LOGGER.info("Tick timings: {}", scheduler.formatTimings());
+                    PlayerActionLogger.LOGGER.info("Vision cache: {}", visionTracker.formatCacheStats());
+                });
+        }
     }
     
     public void tick() {
         if (player == null || !player.isAlive()) return;
         
-        stats.update(player);
-        
+        scheduler.tick();
+    }
+    
+    private void tickHeldItem() {
         // Track held item changes
         ItemStack heldStack = player.getMainHandStack();
-        String newHeldItem = heldStack.isEmpty() ? "empty" : heldStack.getName().getString();
-        if (!newHeldItem.equals(currentHeldItem)) {
+        int newHeldItem = heldStack.isEmpty() ? -1 : symbols.item(heldStack.getItem());
+        if (newHeldItem != currentHeldItem) {
             currentHeldItem = newHeldItem;
-            PlayerActionLogger.getLogManager().logRegularEvent(player, "Switched to holding: " + currentHeldItem);
+            logManager.logRegularEvent(player, "Switched to holding: "
+                + (newHeldItem == -1 ? "empty" : symbols.getName(newHeldItem)));
         }
-        
+    }
+    
+    private void tickVision() {
         // Track vision
         visionTracker.update(player);
         
@@ -81,13 +114,13 @@ public class PlayerTracker {
         Entity lookingAt = visionTracker.getEntityLookingAt(player);
         if (lookingAt != null && lookingAt != currentlyLookingAt) {
             currentlyLookingAt = lookingAt;
-            String entityName = lookingAt.getType().getName().getString();
-            PlayerActionLogger.getLogManager().logRegularEvent(player, "Looking at: " + entityName);
+            int entityType = symbols.entity(lookingAt.getType());
+            String entityName = symbols.getName(entityType);
+            logManager.logRegularEvent(player, "Looking at: " + entityName);
             
             // Check for first encounter
-            if (!SKIP_FIRST_ENCOUNTER.contains(entityName)) {
+            if (!SKIP_FIRST_ENCOUNTER.contains(symbols.getPath(entityType))) {
                 String playerName = player.getName().getString();
-                LogManager logManager = PlayerActionLogger.getLogManager();
                 
                 if (!logManager.hasDiscovered(playerName, "entities", entityName)) {
                     logManager.recordDiscovery(playerName, "entities", entityName);
@@ -95,12 +128,18 @@ public class PlayerTracker {
                 }
             }
         }
-        
+    }
+    
+    private void tickSummaries() {
         // Check mining updates
         if (miningTracker.shouldSendUpdate()) {
             MiningTracker.MiningUpdate update = miningTracker.getUpdate();
             if (update != null && !update.blocks.isEmpty()) {
-                PlayerActionLogger.getLogManager().logMiningUpdate(player, update.blocks, update.duration, update.isActive);
+                logManager.logMiningUpdate(player, update.blocks, update.duration, update.isActive);
+            }
+            if (update != null && !update.isActive) {
+                logManager.logRegularEvent(player, String.format("Mining rate: %.1f blocks/min, %.1f ores/hour",
+                    update.blocksPerMinute, update.oresPerHour));
             }
         }
         
@@ -108,32 +147,29 @@ public class PlayerTracker {
         if (constructionTracker.shouldSendUpdate()) {
             ConstructionTracker.ConstructionUpdate update = constructionTracker.getUpdate();
             if (update != null && !update.blocks.isEmpty()) {
-                PlayerActionLogger.getLogManager().logConstructionUpdate(player, update.type, update.blocks, 
+                logManager.logConstructionUpdate(player, update.type, update.blocks, 
                     update.width, update.height, update.depth, update.duration, update.isActive);
             }
         }
-        
-        // Clean old tracked animals
-        recentlyBredAnimals.removeIf(animal -> !animal.isAlive());
     }
     
     public void onBlockBreak(BlockPos pos, BlockState state) {
-        String blockName = state.getBlock().getName().getString();
-        incrementAction("blocks_broken");
-        blockTypesMined.put(blockName, blockTypesMined.getOrDefault(blockName, 0) + 1);
+        int block = symbols.block(state.getBlock());
+        String blockName = symbols.getName(block);
+        incrementAction(Action.BLOCKS_BROKEN);
+        blockTypesMined.increment(block);
+        boolean ore = classifier.is(block, Classifier.Category.ORE);
         
         // Track mining
-        miningTracker.onBlockBroken(state);
+        miningTracker.onBlockBroken(block, ore);
         
         // Log the individual block break
-        PlayerActionLogger.getLogManager().logRegularEvent(player, "Broke " + blockName + " at " + 
-            pos.getX() + "," + pos.getY() + "," + pos.getZ());
+        logManager.logBlockBroken(player, blockName, pos);
         
         // Check if it's an ore for first discovery
-        if (isOre(state)) {
-            incrementAction("ores_mined");
+        if (ore) {
+            incrementAction(Action.ORES_MINED);
             String playerName = player.getName().getString();
-            LogManager logManager = PlayerActionLogger.getLogManager();
             
             if (!logManager.hasDiscovered(playerName, "ores", blockName)) {
                 logManager.recordDiscovery(playerName, "ores", blockName);
@@ -146,16 +182,16 @@ public class PlayerTracker {
     }
     
     public void onBlockPlace(BlockPos pos, BlockState state) {
-        String blockName = state.getBlock().getName().getString();
-        incrementAction("blocks_placed");
-        blockTypesPlaced.put(blockName, blockTypesPlaced.getOrDefault(blockName, 0) + 1);
+        int block = symbols.block(state.getBlock());
+        String blockName = symbols.getName(block);
+        incrementAction(Action.BLOCKS_PLACED);
+        blockTypesPlaced.increment(block);
         
         // Track construction
-        constructionTracker.onBlockPlaced(pos, state);
+        constructionTracker.onBlockPlaced(pos, block);
         
         // Log the individual block place
-        PlayerActionLogger.getLogManager().logRegularEvent(player, "Placed " + blockName + " at " + 
-            pos.getX() + "," + pos.getY() + "," + pos.getZ());
+        logManager.logBlockPlaced(player, blockName, pos);
     }
     
     public void onDamageReceived(DamageSource source, float amount) {
@@ -166,11 +202,11 @@ public class PlayerTracker {
             if (source.getAttacker() instanceof PlayerEntity) {
                 damageType = "player " + source.getAttacker().getName().getString();
             } else {
-                damageType = source.getAttacker().getType().getName().getString();
+                damageType = symbols.getName(symbols.entity(source.getAttacker().getType()));
             }
         }
         
-        PlayerActionLogger.getLogManager().logDamageReceived(player, damageType, amount);
+        logManager.logDamageReceived(player, damageType, amount);
     }
     
     public void onDamageDealt(Entity target, float amount) {
@@ -179,19 +215,19 @@ public class PlayerTracker {
             targetName = "player " + targetName;
         }
         
-        PlayerActionLogger.getLogManager().logDamageDealt(player, targetName, amount);
+        logManager.logDamageDealt(player, targetName, amount);
     }
     
-    public void onEntityInteraction(Entity entity) {
-        String entityType = entity.getType().getName().getString();
+    public void onEntityInteraction(Entity entity, ItemStack heldItem) {
+        int entitySymbol = symbols.entity(entity.getType());
+        String entityType = symbols.getName(entitySymbol);
         
         if (entity instanceof AnimalEntity animal) {
-            ItemStack heldItem = player.getMainHandStack();
             if (!heldItem.isEmpty() && animal.isBreedingItem(heldItem)) {
-                String itemName = heldItem.getName().getString();
-                PlayerActionLogger.getLogManager().logRegularEvent(player, 
+                String itemName = symbols.getName(symbols.item(heldItem.getItem()));
+                logManager.logRegularEvent(player, 
                     String.format("Fed %s with %s", entityType, itemName));
-                incrementAction("animals_fed");
+                incrementAction(Action.ANIMALS_FED);
                 
                 // Check for breeding
                 if (animal.canEat() && !animal.isBaby()) {
@@ -200,9 +236,9 @@ public class PlayerTracker {
                             e -> e.getType() == animal.getType() && e instanceof AnimalEntity)) {
                         AnimalEntity nearbyAnimal = (AnimalEntity) nearbyEntity;
                         if (nearbyAnimal.isInLove() || recentlyBredAnimals.contains(nearbyAnimal)) {
-                            PlayerActionLogger.getLogManager().logImportantEvent(player,
+                            logManager.logImportantEvent(player,
                                 String.format("Breeding %s", entityType));
-                            incrementAction("animals_bred");
+                            incrementAction(Action.ANIMALS_BRED);
                             recentlyBredAnimals.add(animal);
                             recentlyBredAnimals.add(nearbyAnimal);
                             break;
@@ -213,9 +249,8 @@ public class PlayerTracker {
         }
         
         // Check for first interaction
-        if (!SKIP_FIRST_ENCOUNTER.contains(entityType)) {
+        if (!SKIP_FIRST_ENCOUNTER.contains(symbols.getPath(entitySymbol))) {
             String playerName = player.getName().getString();
-            LogManager logManager = PlayerActionLogger.getLogManager();
             
             if (!logManager.hasDiscovered(playerName, "entities", entityType)) {
                 logManager.recordDiscovery(playerName, "entities", entityType);
@@ -226,26 +261,26 @@ public class PlayerTracker {
     }
     
     public void onEntityKill(Entity entity) {
-        String entityType = entity.getType().getName().getString();
-        incrementAction("entities_killed");
+        String entityType = symbols.getName(symbols.entity(entity.getType()));
+        incrementAction(Action.ENTITIES_KILLED);
         
         // Check if it's a player kill
         if (entity instanceof PlayerEntity killedPlayer) {
-            PlayerActionLogger.getLogManager().logPlayerKill(player, (ServerPlayerEntity) killedPlayer);
-            incrementAction("players_killed");
+            logManager.logPlayerKill(player, (ServerPlayerEntity) killedPlayer);
+            incrementAction(Action.PLAYERS_KILLED);
         } else if (entity instanceof HostileEntity) {
-            incrementAction("hostiles_killed");
+            incrementAction(Action.HOSTILES_KILLED);
             stats.addCombatKill(entityType);
-            PlayerActionLogger.getLogManager().logRegularEvent(player, "Killed " + entityType);
+            logManager.logEntityKill(player, entityType);
         } else if (entity instanceof PassiveEntity) {
-            incrementAction("passives_killed");
-            PlayerActionLogger.getLogManager().logRegularEvent(player, "Killed " + entityType);
+            incrementAction(Action.PASSIVES_KILLED);
+            logManager.logEntityKill(player, entityType);
         }
     }
     
     public void onPlayerDeath(DamageSource source) {
         String deathCause = source.getName();
-        incrementAction("deaths");
+        incrementAction(Action.DEATHS);
         deathCauses.put(deathCause, deathCauses.getOrDefault(deathCause, 0) + 1);
         stats.recordDeath(deathCause);
         
@@ -254,44 +289,44 @@ public class PlayerTracker {
             if (source.getAttacker() instanceof PlayerEntity) {
                 deathCause = "killed by player " + source.getAttacker().getName().getString();
             } else {
-                deathCause = "killed by " + source.getAttacker().getType().getName().getString();
+                deathCause = "killed by " + symbols.getName(symbols.entity(source.getAttacker().getType()));
             }
         }
         
         String dimension = getDimensionName();
-        PlayerActionLogger.getLogManager().logImportantEvent(player,
+        logManager.logImportantEvent(player,
             String.format("Death #%d from %s in %s at %.0f,%.0f,%.0f",
-                actionCounts.getOrDefault("deaths", 0), deathCause, dimension,
+                actionCounts[Action.DEATHS.ordinal()], deathCause, dimension,
                 player.getX(), player.getY(), player.getZ()));
     }
     
     public void onItemUse(ItemStack stack) {
         if (stack.isEmpty()) return;
         
-        String itemName = stack.getName().getString();
-        itemsUsed.put(itemName, itemsUsed.getOrDefault(itemName, 0) + 1);
-        incrementAction("items_used");
+        int item = symbols.item(stack.getItem());
+        itemsUsed.increment(item);
+        incrementAction(Action.ITEMS_USED);
         
         // Log important item usage
-        if (isImportantItemUse(itemName)) {
-            PlayerActionLogger.getLogManager().logRegularEvent(player,
-                String.format("Used important item: %s", itemName));
+        if (classifier.is(item, Classifier.Category.IMPORTANT_USE)) {
+            logManager.logRegularEvent(player,
+                String.format("Used important item: %s", symbols.getName(item)));
         }
     }
     
     public void onItemCrafted(Recipe<?> recipe, ItemStack result) {
-        String itemName = result.getName().getString();
+        int item = symbols.item(result.getItem());
+        String itemName = symbols.getName(item);
         int count = result.getCount();
         
-        craftedItems.put(itemName, craftedItems.getOrDefault(itemName, 0) + count);
-        incrementAction("items_crafted");
+        craftedItems.add(item, count);
+        incrementAction(Action.ITEMS_CRAFTED);
         
-        PlayerActionLogger.getLogManager().logRegularEvent(player,
-            String.format("Crafted %dx %s", count, itemName));
+        logManager.logItemCrafted(player, itemName, count);
         
         // Log important crafts
-        if (isImportantItem(itemName)) {
-            PlayerActionLogger.getLogManager().logImportantEvent(player,
+        if (classifier.is(item, Classifier.Category.IMPORTANT_CRAFT)) {
+            logManager.logImportantEvent(player,
                 String.format("Crafted important item: %dx %s", count, itemName));
         }
     }
@@ -303,7 +338,7 @@ public class PlayerTracker {
     public void onInventoryClose() {
         String summary = inventoryTracker.getSummary();
         if (summary != null) {
-            PlayerActionLogger.getLogManager().logRegularEvent(player, summary);
+            logManager.logRegularEvent(player, summary);
         }
         inventoryTracker.reset();
     }
@@ -313,7 +348,7 @@ public class PlayerTracker {
     }
     
     public void onChatMessage(String message) {
-        PlayerActionLogger.getLogManager().logChatMessage(player, message);
+        logManager.logChatMessage(player, message);
     }
     
     private String getDimensionName() {
@@ -322,36 +357,12 @@ public class PlayerTracker {
         return dimName.substring(0, 1).toUpperCase() + dimName.substring(1);
     }
     
-    private boolean isOre(BlockState state) {
-        String name = state.getBlock().getName().getString().toLowerCase();
-        return name.contains("ore") || name.contains("_ore") || 
-               name.contains("ancient_debris") || name.contains("nether_gold");
-    }
-    
-    private boolean isImportantItem(String itemName) {
-        String lower = itemName.toLowerCase();
-        return lower.contains("diamond") || lower.contains("netherite") || 
-               lower.contains("enchant") || lower.contains("golden_apple") ||
-               lower.contains("totem") || lower.contains("elytra");
-    }
-    
-    private boolean isImportantItemUse(String itemName) {
-        String lower = itemName.toLowerCase();
-        return lower.contains("potion") || lower.contains("ender_pearl") || 
-               lower.contains("eye_of_ender") || lower.contains("totem") ||
-               lower.contains("bucket") || lower.contains("flint_and_steel") ||
-               lower.contains("golden_apple");
-    }
-    
-    private void incrementAction(String action) {
-        actionCounts.put(action, actionCounts.getOrDefault(action, 0) + 1);
+    private void incrementAction(Action action) {
+        actionCounts[action.ordinal()]++;
     }
     
     private void addRecentAction(TimedAction action) {
-        recentActions.add(action);
-        if (recentActions.size() > 100) {
-            recentActions.remove(0);
-        }
+        recentActions.add(action, action.timestamp);
     }
     
     public void updatePlayer(ServerPlayerEntity newPlayer) {
@@ -359,15 +370,37 @@ public class PlayerTracker {
     }
     
     // Getters
+    public ServerPlayerEntity getPlayer() { return player; }
     public PlayerStats getStats() { return stats; }
-    public Map<String, Integer> getActionCounts() { return new HashMap<>(actionCounts); }
+    public long getActionCount(Action action) { return actionCounts[action.ordinal()]; }
+    public Map<String, Integer> getActionCounts() {
+        // Same keys as before, only the actions that happened
+        Map<String, Integer> counts = new HashMap<>();
+        for (Action action : Action.values()) {
+            long count = actionCounts[action.ordinal()];
+            if (count > 0) counts.put(action.key, (int) count);
+        }
+        return counts;
+    }
     public Map<String, Integer> getDeathCauses() { return new HashMap<>(deathCauses); }
-    public Map<String, Integer> getCraftedItems() { return new HashMap<>(craftedItems); }
-    public Map<String, Integer> getBlockTypesMined() { return new HashMap<>(blockTypesMined); }
-    public Map<String, Integer> getBlockTypesPlaced() { return new HashMap<>(blockTypesPlaced); }
-    public Map<String, Integer> getItemsUsed() { return new HashMap<>(itemsUsed); }
-    public List<TimedAction> getRecentActions() { return new ArrayList<>(recentActions); }
+    public Map<String, Integer> getCraftedItems() { return symbols.toNames(craftedItems, new HashMap<>()); }
+    public Map<String, Integer> getBlockTypesMined() { return symbols.toNames(blockTypesMined, new HashMap<>()); }
+    public Map<String, Integer> getBlockTypesPlaced() { return symbols.toNames(blockTypesPlaced, new HashMap<>()); }
+    public Map<String, Integer> getItemsUsed() { return symbols.toNames(itemsUsed, new HashMap<>()); }
+    public List<TimedAction> getRecentActions() { return recentActions.view(); }
+    public List<TimedAction> getRecentActionsSince(long time) { return recentActions.since(time); }
     public InventoryTracker getInventoryTracker() { return inventoryTracker; }
+    public TickScheduler getScheduler() { return scheduler; }
+    
+    public enum Action {
+        BLOCKS_BROKEN, ORES_MINED, BLOCKS_PLACED,
+        ANIMALS_FED, ANIMALS_BRED,
+        ENTITIES_KILLED, PLAYERS_KILLED, HOSTILES_KILLED, PASSIVES_KILLED,
+        DEATHS, ITEMS_USED, ITEMS_CRAFTED;
+        
+        // Name used in reports, "blocks_broken"
+        public final String key = name().toLowerCase(Locale.ROOT);
+    }
     
     public static class TimedAction {
         public final String action;
@@ -0,0 +1,141 @@
+package com.yourmod.playeractionlogger;
+
+import com.yourmod.playeractionlogger.util.IntLongCounterMap;
+import net.minecraft.block.Block;
+import net.minecraft.entity.EntityType;
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.Registry;
+import net.minecraft.text.Text;
+import net.minecraft.util.Identifier;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Dense int symbols for blocks, items and entity types, so counters can be
+ * keyed by an int instead of a translated display name. A symbol is handed
+ * out the first time a registry entry is seen, through its raw id, and keeps
+ * the entry's registry id ("minecraft:stone"). The display name is only
+ * resolved when {@link #getName} is first asked for it, then cached.
+ *
+ * <p>Not thread-safe, used from the client thread.
+ */
+public class SymbolTable {
+    public enum Kind { BLOCK, ITEM, ENTITY }
+    
+    // Per kind, symbol + 1 by raw id, 0 where no symbol was handed out yet
+    private final int[][] byRawId = new int[Kind.values().length][];
+    private Object[] values = new Object[256];
+    private Kind[] kinds = new Kind[256];
+    private String[] ids = new String[256];
+    private int[] rawIds = new int[256];
+    private String[] paths = new String[256];
+    private String[] names = new String[256];
+    private int size = 0;
+    
+    public SymbolTable() {
+        Arrays.fill(byRawId, new int[0]);
+    }
+    
+    public int block(Block block) {
+        return symbol(Kind.BLOCK, Registries.BLOCK, block);
+    }
+    
+    public int item(Item item) {
+        return symbol(Kind.ITEM, Registries.ITEM, item);
+    }
+    
+    public int entity(EntityType<?> type) {
+        return symbol(Kind.ENTITY, Registries.ENTITY_TYPE, type);
+    }
+    
+    // Item by registry id, as saved to disk; -1 when no such item is registered (anymore)
+    public int itemById(String id) {
+        Identifier identifier = Identifier.tryParse(id);
+        if (identifier == null || !Registries.ITEM.containsId(identifier)) return -1;
+        return item(Registries.ITEM.get(identifier));
+    }
+    
+    private <T> int symbol(Kind kind, Registry<T> registry, T value) {
+        int rawId = registry.getRawId(value);
+        if (rawId < 0) {
+            // Not registered, nothing to key it by but itself
+            return add(kind, value, String.valueOf(value), -1);
+        }
+        
+        int[] table = byRawId[kind.ordinal()];
+        if (rawId >= table.length) {
+            table = byRawId[kind.ordinal()] = Arrays.copyOf(table, Math.max(rawId + 1, registry.size()));
+        }
+        if (table[rawId] == 0) {
+            table[rawId] = add(kind, value, registry.getId(value).toString(), rawId) + 1;
+        }
+        return table[rawId] - 1;
+    }
+    
+    private int add(Kind kind, Object value, String id, int rawId) {
+        if (size == values.length) {
+            int capacity = size * 2;
+            values = Arrays.copyOf(values, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            rawIds = Arrays.copyOf(rawIds, capacity);
+            paths = Arrays.copyOf(paths, capacity);
+            names = Arrays.copyOf(names, capacity);
+        }
+        values[size] = value;
+        kinds[size] = kind;
+        ids[size] = id;
+        rawIds[size] = rawId;
+        paths[size] = id.substring(id.indexOf(':') + 1);
+        return size++;
+    }
+    
+    // Display name in the client's language, resolved once per symbol
+    public String getName(int symbol) {
+        String name = names[symbol];
+        if (name == null) {
+            name = names[symbol] = resolveName(symbol).getString();
+        }
+        return name;
+    }
+    
+    private Text resolveName(int symbol) {
+        Object value = values[symbol];
+        return switch (kinds[symbol]) {
+            case BLOCK -> ((Block) value).getName();
+            case ITEM -> ((Item) value).getName();
+            case ENTITY -> ((EntityType<?>) value).getName();
+        };
+    }
+    
+    // Registry id, the same whatever the language
+    public String getId(int symbol) {
+        return ids[symbol];
+    }
+    
+    // Registry id without its namespace, "stone" for "minecraft:stone"
+    public String getPath(int symbol) {
+        return paths[symbol];
+    }
+    
+    // Raw id in its registry, -1 for a value that isn't registered
+    public int getRawId(int symbol) {
+        return rawIds[symbol];
+    }
+    
+    public Kind getKind(int symbol) {
+        return kinds[symbol];
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    // Counts keyed by symbol, as counts keyed by display name
+    public <M extends Map<String, Integer>> M toNames(IntLongCounterMap counts, M into) {
+        counts.forEach((symbol, count) -> into.merge(getName(symbol), (int) count, Integer::sum));
+        return into;
+    }
+}
@@ -9,91 +9,214 @@ import net.minecraft.util.math.Box;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.RaycastContext;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * What the player can see. {@link #update} only captures the eye pose and the
+ * entities worth testing on the tick thread. The chunk sections between them
+ * and the player are copied on the server thread, the one that writes them,
+ * as a task between two server ticks. Line of sight is then worked out on a
+ * shared worker thread against that snapshot, and the result is published
+ * atomically. The getters always read the last completed result, which lags
+ * the world by a tick or so.
+ */
 public class VisionTracker {
     private static final double MAX_VIEW_DISTANCE = 64.0;
     private static final double FIELD_OF_VIEW = 70.0; // degrees
     private static final double PRECISE_LOOK_DISTANCE = 20.0; // for precise looking at entity
+    private static final double CACHE_MOVE_THRESHOLD = 0.25;
+    private static final double MAX_VIEW_DISTANCE_SQ = MAX_VIEW_DISTANCE * MAX_VIEW_DISTANCE;
+    private static final double COS_HALF_FOV = Math.cos(Math.toRadians(FIELD_OF_VIEW / 2));
+    private static final double SIN_HALF_FOV = Math.sin(Math.toRadians(FIELD_OF_VIEW / 2));
     
-    private Set<String> currentlyVisible;
-    private Set<String> previouslyVisible;
-    private Entity currentlyLookingAt;
+    // One for every tracker, the work per update is small and never needs to overlap
+    private static final ExecutorService WORKER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "PAL Vision");
+        thread.setDaemon(true);
+        return thread;
+    });
     
-    public VisionTracker() {
-        this.currentlyVisible = new HashSet<>();
-        this.previouslyVisible = new HashSet<>();
-        this.currentlyLookingAt = null;
+    private final WorldSnapshot.Builder blocks = new WorldSnapshot.Builder();
+    private final EntityGrid entities = new EntityGrid();
+    private final BlockChangeLog blockChanges;
+    // Results are reused while the eye and the target stay within this distance of where they were
+    private final LineOfSightCache sightCache;
+    private final LineOfSightCache lookCache;
+    private final SymbolTable symbols;
+    private final AtomicReference<Result> result = new AtomicReference<>(Result.EMPTY);
+    // Set while the worker has a snapshot of ours, updates are skipped meanwhile
+    private final AtomicBoolean busy = new AtomicBoolean();
+    
+    public VisionTracker(SymbolTable symbols) {
+        this(PlayerActionLogger.getBlockChangeLog(), symbols);
+    }
+    
+    public VisionTracker(BlockChangeLog blockChanges, SymbolTable symbols) {
+        this.blockChanges = blockChanges;
+        this.symbols = symbols;
+        this.sightCache = new LineOfSightCache(blockChanges, CACHE_MOVE_THRESHOLD);
+        this.lookCache = new LineOfSightCache(blockChanges, CACHE_MOVE_THRESHOLD);
     }
     
     public void update(ServerPlayerEntity player) {
-        previouslyVisible = new HashSet<>(currentlyVisible);
-        currentlyVisible.clear();
-        
-        // Get player's view direction
-        Vec3d eyePos = player.getEyePos();
-        Vec3d lookVec = player.getRotationVector();
+        if (!busy.compareAndSet(false, true)) return;
         
-        // Scan for entities in view
-        Box searchBox = new Box(eyePos.subtract(MAX_VIEW_DISTANCE, MAX_VIEW_DISTANCE, MAX_VIEW_DISTANCE),
-                                eyePos.add(MAX_VIEW_DISTANCE, MAX_VIEW_DISTANCE, MAX_VIEW_DISTANCE));
-        
-        player.getWorld().getOtherEntities(player, searchBox, entity -> true).forEach(entity -> {
-            if (canSee(player, entity)) {
-                String entityInfo = String.format("%s at %.1f blocks", 
-                    entity.getType().getName().getString(), 
-                    entity.distanceTo(player));
-                currentlyVisible.add(entityInfo);
+        try {
+            Snapshot snapshot = capture(player);
+            player.getServer().execute(() -> copyBlocks(snapshot));
+        } catch (RuntimeException e) {
+            busy.set(false);
+            throw e;
+        }
+    }
+    
+    // Server thread: a section copied here can't be resized or written halfway through
+    private void copyBlocks(Snapshot snapshot) {
+        try {
+            snapshot.blocks = blocks.build();
+        } catch (RuntimeException e) {
+            busy.set(false);
+            PlayerActionLogger.LOGGER.error("Vision snapshot failed", e);
+            return;
+        }
+        WORKER.execute(() -> {
+            try {
+                result.set(classify(snapshot, result.get()));
+            } catch (RuntimeException e) {
+                PlayerActionLogger.LOGGER.error("Vision update failed", e);
+            } finally {
+                busy.set(false);
             }
         });
-        
-        // Update what entity player is directly looking at
-        updateLookingAtEntity(player);
     }
     
     public Entity getEntityLookingAt(ServerPlayerEntity player) {
-        return currentlyLookingAt;
+        return result.get().lookingAt;
     }
     
-    private void updateLookingAtEntity(ServerPlayerEntity player) {
+    // Tick thread: only cheap reads, the sections the rays cross are only listed here
+    private Snapshot capture(ServerPlayerEntity player) {
         Vec3d eyePos = player.getEyePos();
         Vec3d lookVec = player.getRotationVector();
-        Vec3d endPos = eyePos.add(lookVec.multiply(PRECISE_LOOK_DISTANCE));
+        Vec3d lookEnd = eyePos.add(lookVec.multiply(PRECISE_LOOK_DISTANCE));
+        Box lookBox = new Box(eyePos, lookEnd).expand(1.0);
+        // Taken before any block is copied, a change racing the copy invalidates later rather than never
+        long changeSequence = blockChanges.getSequence();
+        blocks.begin(player.getWorld());
         
-        // Raycast for entities
-        Box searchBox = new Box(eyePos, endPos).expand(1.0);
+        // Only the entities in cells the view cone reaches, the cone itself doesn't move the grid
+        entities.refresh(player, eyePos, MAX_VIEW_DISTANCE);
+        List<EntitySnapshot> candidates = new ArrayList<>();
+        entities.forEachInCone(eyePos, lookVec, MAX_VIEW_DISTANCE, COS_HALF_FOV, SIN_HALF_FOV, entity -> {
+            Vec3d targetPos = entity.getPos().add(0, entity.getHeight() / 2, 0);
+            Box box = entity.getBoundingBox();
+            boolean inView = inFieldOfView(eyePos, lookVec, targetPos);
+            boolean onLookRay = box.intersects(lookBox);
+            if (!inView && !onLookRay) return;
+            
+            candidates.add(new EntitySnapshot(entity, typeName(entity), entity.distanceTo(player),
+                targetPos, box, inView, onLookRay));
+            if (inView) {
+                blocks.addSegment(eyePos, targetPos);
+            }
+        });
+        blocks.addSegment(eyePos, lookEnd);
         
+        return new Snapshot(player, eyePos, lookEnd, candidates, changeSequence);
+    }
+    
+    // Worker thread: everything it reads is in the snapshot, the caches are only touched here
+    private Result classify(Snapshot snapshot, Result previous) {
+        Set<String> visible = new HashSet<>();
         Entity closestEntity = null;
         double closestDistance = PRECISE_LOOK_DISTANCE;
+        sightCache.beginScan();
+        lookCache.beginScan();
         
-        for (Entity entity : player.getWorld().getOtherEntities(player, searchBox, e -> true)) {
-            Box entityBox = entity.getBoundingBox();
-            Optional<Vec3d> hitPos = entityBox.raycast(eyePos, endPos);
+        for (EntitySnapshot entity : snapshot.entities) {
+            int id = entity.entity.getId();
+            if (entity.inView && sightCache.isClear(id, snapshot.eyePos, entity.targetPos, snapshot.changeSequence,
+                    () -> isVisible(snapshot, entity.targetPos))) {
+                visible.add(String.format("%s at %.1f blocks", entity.typeName, entity.distance));
+            }
             
-            if (hitPos.isPresent()) {
-                double distance = eyePos.distanceTo(hitPos.get());
-                if (distance < closestDistance) {
-                    // Check line of sight
-                    HitResult blockHit = player.getWorld().raycast(new RaycastContext(
-                        eyePos,
-                        hitPos.get(),
-                        RaycastContext.ShapeType.COLLIDER,
-                        RaycastContext.FluidHandling.NONE,
-                        player
-                    ));
-                    
-                    if (blockHit.getType() == HitResult.Type.MISS || 
-                        blockHit.getPos().distanceTo(hitPos.get()) > blockHit.getPos().distanceTo(eyePos)) {
-                        closestEntity = entity;
+            // Raycast for the entity the player is directly looking at
+            if (entity.onLookRay) {
+                Optional<Vec3d> hitPos = entity.box.raycast(snapshot.eyePos, snapshot.lookEnd);
+                if (hitPos.isPresent()) {
+                    double distance = snapshot.eyePos.distanceTo(hitPos.get());
+                    if (distance < closestDistance
+                            && lookCache.isClear(id, snapshot.eyePos, hitPos.get(), snapshot.changeSequence,
+                                () -> isReachable(snapshot, hitPos.get()))) {
+                        closestEntity = entity.entity;
                         closestDistance = distance;
                     }
                 }
             }
         }
         
-        currentlyLookingAt = closestEntity;
+        sightCache.endScan();
+        lookCache.endScan();
+        return new Result(visible, previous.visible, closestEntity);
+    }
+    
+    private static boolean isVisible(Snapshot snapshot, Vec3d targetPos) {
+        HitResult hitResult = snapshot.blocks.raycast(new RaycastContext(
+            snapshot.eyePos,
+            targetPos,
+            RaycastContext.ShapeType.OUTLINE,
+            RaycastContext.FluidHandling.NONE,
+            snapshot.player
+        ));
+        
+        // If we hit nothing or hit the target position, we can see it
+        return hitResult.getType() == HitResult.Type.MISS ||
+            hitResult.getPos().distanceTo(targetPos) < 1.0;
+    }
+    
+    private static boolean isReachable(Snapshot snapshot, Vec3d hitPos) {
+        // Check line of sight
+        HitResult blockHit = snapshot.blocks.raycast(new RaycastContext(
+            snapshot.eyePos,
+            hitPos,
+            RaycastContext.ShapeType.COLLIDER,
+            RaycastContext.FluidHandling.NONE,
+            snapshot.player
+        ));
+        
+        return blockHit.getType() == HitResult.Type.MISS ||
+            blockHit.getPos().distanceTo(hitPos) > blockHit.getPos().distanceTo(snapshot.eyePos);
+    }
+    
+    public String formatCacheStats() {
+        return String.format("sight %.0f%% hits (%d raycasts saved, %d done), look %.0f%% hits (%d saved, %d done)",
+            sightCache.getHitRate() * 100, sightCache.getHits(), sightCache.getMisses(),
+            lookCache.getHitRate() * 100, lookCache.getHits(), lookCache.getMisses());
+    }
+    
+    private String typeName(Entity entity) {
+        return symbols.getName(symbols.entity(entity.getType()));
+    }
+    
+    // lookVec is a unit vector: in the cone when lookVec·v >= |v|·cos(FOV/2), compared squared
+    private static boolean inFieldOfView(Vec3d eyePos, Vec3d lookVec, Vec3d targetPos) {
+        double dx = targetPos.x - eyePos.x;
+        double dy = targetPos.y - eyePos.y;
+        double dz = targetPos.z - eyePos.z;
+        double distanceSq = dx * dx + dy * dy + dz * dz;
+        if (distanceSq > MAX_VIEW_DISTANCE_SQ) return false;
+        
+        double along = lookVec.x * dx + lookVec.y * dy + lookVec.z * dz;
+        return along >= 0 && along * along >= COS_HALF_FOV * COS_HALF_FOV * distanceSq;
     }
     
     public boolean canSee(ServerPlayerEntity player, Entity target) {
@@ -101,18 +224,7 @@ public class VisionTracker {
         
         Vec3d eyePos = player.getEyePos();
         Vec3d targetPos = target.getPos().add(0, target.getHeight() / 2, 0);
-        
-        // Check distance
-        double distance = eyePos.distanceTo(targetPos);
-        if (distance > MAX_VIEW_DISTANCE) return false;
-        
-        // Check field of view
-        Vec3d lookVec = player.getRotationVector();
-        Vec3d toTarget = targetPos.subtract(eyePos).normalize();
-        double dot = lookVec.dotProduct(toTarget);
-        double angle = Math.toDegrees(Math.acos(dot));
-        
-        if (angle > FIELD_OF_VIEW / 2) return false;
+        if (!inFieldOfView(eyePos, player.getRotationVector(), targetPos)) return false;
         
         // Check line of sight (raycast)
         HitResult hitResult = player.getWorld().raycast(new RaycastContext(
@@ -131,18 +243,7 @@ public class VisionTracker {
     public boolean canSeeBlock(ServerPlayerEntity player, BlockPos pos) {
         Vec3d eyePos = player.getEyePos();
         Vec3d blockCenter = Vec3d.ofCenter(pos);
-        
-        // Check distance
-        double distance = eyePos.distanceTo(blockCenter);
-        if (distance > MAX_VIEW_DISTANCE) return false;
-        
-        // Check field of view
-        Vec3d lookVec = player.getRotationVector();
-        Vec3d toBlock = blockCenter.subtract(eyePos).normalize();
-        double dot = lookVec.dotProduct(toBlock);
-        double angle = Math.toDegrees(Math.acos(dot));
-        
-        if (angle > FIELD_OF_VIEW / 2) return false;
+        if (!inFieldOfView(eyePos, player.getRotationVector(), blockCenter)) return false;
         
         // Simple line of sight check
         HitResult hitResult = player.getWorld().raycast(new RaycastContext(
@@ -162,18 +263,75 @@ public class VisionTracker {
     }
     
     public Set<String> getNewlyVisible() {
-        Set<String> newly = new HashSet<>(currentlyVisible);
-        newly.removeAll(previouslyVisible);
+        Result last = result.get();
+        Set<String> newly = new HashSet<>(last.visible);
+        newly.removeAll(last.previouslyVisible);
         return newly;
     }
     
     public Set<String> getNoLongerVisible() {
-        Set<String> lost = new HashSet<>(previouslyVisible);
-        lost.removeAll(currentlyVisible);
+        Result last = result.get();
+        Set<String> lost = new HashSet<>(last.previouslyVisible);
+        lost.removeAll(last.visible);
         return lost;
     }
     
     public Set<String> getCurrentlyVisible() {
-        return new HashSet<>(currentlyVisible);
+        return new HashSet<>(result.get().visible);
+    }
+    
+    private static class EntitySnapshot {
+        final Entity entity;
+        final String typeName;
+        final float distance;
+        final Vec3d targetPos;
+        final Box box;
+        final boolean inView;
+        final boolean onLookRay;
+        
+        EntitySnapshot(Entity entity, String typeName, float distance, Vec3d targetPos, Box box,
+                       boolean inView, boolean onLookRay) {
+            this.entity = entity;
+            this.typeName = typeName;
+            this.distance = distance;
+            this.targetPos = targetPos;
+            this.box = box;
+            this.inView = inView;
+            this.onLookRay = onLookRay;
+        }
+    }
+    
+    private static class Snapshot {
+        // Only handed to RaycastContext, which reads its shape context
+        final ServerPlayerEntity player;
+        final Vec3d eyePos;
+        final Vec3d lookEnd;
+        final List<EntitySnapshot> entities;
+        final long changeSequence;
+        // Set on the server thread, before the snapshot is handed to the worker
+        WorldSnapshot blocks;
+        
+        Snapshot(ServerPlayerEntity player, Vec3d eyePos, Vec3d lookEnd, List<EntitySnapshot> entities,
+                 long changeSequence) {
+            this.player = player;
+            this.eyePos = eyePos;
+            this.lookEnd = lookEnd;
+            this.entities = entities;
+            this.changeSequence = changeSequence;
+        }
+    }
+    
+    private static class Result {
+        static final Result EMPTY = new Result(Collections.emptySet(), Collections.emptySet(), null);
+        
+        final Set<String> visible;
+        final Set<String> previouslyVisible;
+        final Entity lookingAt;
+        
+        Result(Set<String> visible, Set<String> previouslyVisible, Entity lookingAt) {
+            this.visible = visible;
+            this.previouslyVisible = previouslyVisible;
+            this.lookingAt = lookingAt;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,295 @@
+package com.yourmod.playeractionlogger;
+
+import com.yourmod.playeractionlogger.util.IntLongCounterMap;
+import com.yourmod.playeractionlogger.util.VoxelSet;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The blocks placed during one building session, kept in a {@link VoxelSet},
+ * with what can be maintained block by block: bounding box, blocks per
+ * layer, exposed faces and connected components (union-find over the
+ * blocks, 6-connected). {@link #analyze()} adds the one thing that needs a
+ * pass over the volume, the air the blocks enclose, and classifies the build.
+ */
+public class VoxelStructure {
+    // Bigger boxes (expanded by one) aren't flood filled, the enclosed air is reported as unknown
+    private static final int MAX_FLOOD_VOLUME = 1 << 21;
+    private static final int[][] NEIGHBOURS = {{1, 0, 0}, {-1, 0, 0}, {0, 1, 0}, {0, -1, 0}, {0, 0, 1}, {0, 0, -1}};
+    private static final long FREE = Long.MIN_VALUE;
+    
+    private final VoxelSet blocks = new VoxelSet();
+    private final IntLongCounterMap layers = new IntLongCounterMap();
+    private int minX, maxX, minY, maxY, minZ, maxZ;
+    private long exposedFaces = 0;
+    
+    // Union-find: block index by packed position, open addressing, and parent per index
+    private long[] indexKeys = newKeys(64);
+    private int[] indexValues = new int[64];
+    private int[] parent = new int[64];
+    private int components = 0;
+    
+    public void add(int x, int y, int z) {
+        if (!blocks.add(x, y, z)) return;
+        
+        int index = blocks.size() - 1;
+        if (index == 0) {
+            minX = maxX = x;
+            minY = maxY = y;
+            minZ = maxZ = z;
+        } else {
+            minX = Math.min(minX, x);
+            maxX = Math.max(maxX, x);
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+            minZ = Math.min(minZ, z);
+            maxZ = Math.max(maxZ, z);
+        }
+        layers.increment(y);
+        
+        if (index == parent.length) {
+            parent = Arrays.copyOf(parent, index * 2);
+        }
+        parent[index] = index;
+        putIndex(pack(x, y, z), index);
+        components++;
+        
+        // Each face shared with a neighbour hides one face of each block
+        exposedFaces += 6;
+        for (int[] n : NEIGHBOURS) {
+            int nx = x + n[0], ny = y + n[1], nz = z + n[2];
+            if (blocks.contains(nx, ny, nz)) {
+                exposedFaces -= 2;
+                if (union(index, getIndex(pack(nx, ny, nz)))) components--;
+            }
+        }
+    }
+    
+    public boolean contains(int x, int y, int z) {
+        return blocks.contains(x, y, z);
+    }
+    
+    public int size() {
+        return blocks.size();
+    }
+    
+    public boolean isEmpty() {
+        return blocks.isEmpty();
+    }
+    
+    public int getComponents() {
+        return components;
+    }
+    
+    public long getExposedFaces() {
+        return exposedFaces;
+    }
+    
+    public int getWidth() { return isEmpty() ? 0 : maxX - minX + 1; }
+    public int getHeight() { return isEmpty() ? 0 : maxY - minY + 1; }
+    public int getDepth() { return isEmpty() ? 0 : maxZ - minZ + 1; }
+    
+    public void clear() {
+        blocks.clear();
+        layers.clear();
+        exposedFaces = 0;
+        components = 0;
+        indexKeys = newKeys(64);
+        indexValues = new int[64];
+        parent = new int[64];
+    }
+    
+    public Analysis analyze() {
+        int width = getWidth(), height = getHeight(), depth = getDepth();
+        int footprint = width * depth;
+        double topCoverage = footprint == 0 ? 0 : (double) layers.get(maxY) / footprint;
+        double bottomShare = isEmpty() ? 0 : (double) layers.get(minY) / size();
+        
+        long enclosed = -1;
+        int interiorHeight = 0;
+        long volume = (long) (width + 2) * (height + 2) * (depth + 2);
+        if (!isEmpty() && volume <= MAX_FLOOD_VOLUME) {
+            int[] interior = new int[2];
+            enclosed = countEnclosedAir(width + 2, height + 2, depth + 2, interior);
+            interiorHeight = enclosed > 0 ? interior[1] - interior[0] + 1 : 0;
+        }
+        
+        return new Analysis(size(), components, width, height, depth, exposedFaces, enclosed,
+            interiorHeight, topCoverage, bottomShare);
+    }
+    
+    /**
+     * Air cells of the box, expanded by one, that can't be reached from its
+     * border through other air cells (6-connected). interiorY gets the lowest
+     * and highest y of the enclosed cells.
+     */
+    private long countEnclosedAir(int sx, int sy, int sz, int[] interiorY) {
+        int baseX = minX - 1, baseY = minY - 1, baseZ = minZ - 1;
+        int volume = sx * sy * sz;
+        BitSet outside = new BitSet(volume);
+        int[] stack = new int[64];
+        int top = 0;
+        
+        // The expanded box's corner is always air, the flood starts there
+        outside.set(0);
+        stack[top++] = 0;
+        long reached = 1;
+        while (top > 0) {
+            int cell = stack[--top];
+            int cx = cell % sx, cy = cell / sx % sy, cz = cell / (sx * sy);
+            for (int[] n : NEIGHBOURS) {
+                int nx = cx + n[0], ny = cy + n[1], nz = cz + n[2];
+                if (nx < 0 || ny < 0 || nz < 0 || nx >= sx || ny >= sy || nz >= sz) continue;
+                int next = (nz * sy + ny) * sx + nx;
+                if (outside.get(next) || blocks.contains(baseX + nx, baseY + ny, baseZ + nz)) continue;
+                outside.set(next);
+                reached++;
+                if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                stack[top++] = next;
+            }
+        }
+        
+        long enclosed = volume - reached - size();
+        if (enclosed > 0) {
+            int low = Integer.MAX_VALUE, high = Integer.MIN_VALUE;
+            for (int y = 1; y < sy - 1; y++) {
+                layer:
+                for (int z = 1; z < sz - 1; z++) {
+                    for (int x = 1; x < sx - 1; x++) {
+                        if (!outside.get((z * sy + y) * sx + x) && !blocks.contains(baseX + x, baseY + y, baseZ + z)) {
+                            low = Math.min(low, y);
+                            high = y;
+                            break layer;
+                        }
+                    }
+                }
+            }
+            interiorY[0] = low;
+            interiorY[1] = high;
+        }
+        return enclosed;
+    }
+    
+    private boolean union(int a, int b) {
+        int ra = find(a), rb = find(b);
+        if (ra == rb) return false;
+        // No ranks, the newer root goes under the older one, find() halves paths
+        if (ra < rb) {
+            parent[rb] = ra;
+        } else {
+            parent[ra] = rb;
+        }
+        return true;
+    }
+    
+    private int find(int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+    
+    private void putIndex(long key, int index) {
+        if (blocks.size() * 2 > indexKeys.length) {
+            long[] oldKeys = indexKeys;
+            int[] oldValues = indexValues;
+            indexKeys = newKeys(oldKeys.length * 2);
+            indexValues = new int[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != FREE) insert(oldKeys[i], oldValues[i]);
+            }
+        }
+        insert(key, index);
+    }
+    
+    private void insert(long key, int index) {
+        int mask = indexKeys.length - 1;
+        int slot = mix(key) & mask;
+        while (indexKeys[slot] != FREE) {
+            slot = (slot + 1) & mask;
+        }
+        indexKeys[slot] = key;
+        indexValues[slot] = index;
+    }
+    
+    private int getIndex(long key) {
+        int mask = indexKeys.length - 1;
+        int slot = mix(key) & mask;
+        while (indexKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return indexValues[slot];
+    }
+    
+    private static long[] newKeys(int capacity) {
+        long[] keys = new long[capacity];
+        Arrays.fill(keys, FREE);
+        return keys;
+    }
+    
+    // Same layout as BlockPos.asLong()
+    private static long pack(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFF) << 38 | ((long) z & 0x3FFFFFF) << 12 | ((long) y & 0xFFF);
+    }
+    
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+    
+    public static class Analysis {
+        public final int blocks;
+        public final int components;
+        public final int width, height, depth;
+        public final long exposedFaces;
+        // -1 when the box was too big to flood fill
+        public final long enclosedAir;
+        // Height of the enclosed space, 0 without one
+        public final int interiorHeight;
+        // Share of the footprint covered by the top layer, and of the blocks in the bottom one
+        public final double topCoverage;
+        public final double bottomShare;
+        
+        Analysis(int blocks, int components, int width, int height, int depth, long exposedFaces,
+                 long enclosedAir, int interiorHeight, double topCoverage, double bottomShare) {
+            this.blocks = blocks;
+            this.components = components;
+            this.width = width;
+            this.height = height;
+            this.depth = depth;
+            this.exposedFaces = exposedFaces;
+            this.enclosedAir = enclosedAir;
+            this.interiorHeight = interiorHeight;
+            this.topCoverage = topCoverage;
+            this.bottomShare = bottomShare;
+        }
+        
+        public boolean hasRoof() {
+            return height >= 3 && topCoverage >= 0.6;
+        }
+        
+        /**
+         * Room, hollow shell, tower or bridge, null when none of them fits and
+         * the caller's bounding box guess is as good as anything.
+         */
+        public String classify() {
+            int longSide = Math.max(width, depth);
+            int shortSide = Math.min(width, depth);
+            
+            if (enclosedAir > 0) {
+                // Closed all around: a room when a player could stand in it
+                return interiorHeight >= 2 && interiorHeight <= 6 ? "room" : "hollow shell";
+            }
+            if (components == 1 && height >= 8 && height >= 2 * longSide && shortSide >= 2) {
+                return "tower";
+            }
+            if (components == 1 && longSide >= 8 && longSide >= 3 * shortSide && height <= 4
+                    && bottomShare >= 0.5) {
+                return "bridge";
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.yourmod.playeractionlogger;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.BlockView;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.ChunkStatus;
+import net.minecraft.world.chunk.PalettedContainer;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Copies of the chunk sections a set of rays goes through, readable from any
+ * thread as a {@link BlockView}. Anything that wasn't copied (sections no
+ * ray touches, unloaded chunks) reads as air. Block entities aren't copied.
+ *
+ * <p>Built with a {@link Builder}: add the ray segments, then
+ * {@link Builder#build()} copies each section they cross once. The copy must
+ * run on the server thread: PalettedContainer.copy() takes no lock, and a
+ * section written or resized meanwhile would come out torn.
+ */
+public class WorldSnapshot implements BlockView {
+    private static final BlockState AIR = Blocks.AIR.getDefaultState();
+    
+    private final Map<Long, PalettedContainer<BlockState>> sections;
+    private final int bottomY;
+    private final int height;
+    
+    private WorldSnapshot(Map<Long, PalettedContainer<BlockState>> sections, int bottomY, int height) {
+        this.sections = sections;
+        this.bottomY = bottomY;
+        this.height = height;
+    }
+    
+    @Override
+    public BlockState getBlockState(BlockPos pos) {
+        PalettedContainer<BlockState> section = sections.get(
+            ChunkSectionPos.asLong(pos.getX() >> 4, pos.getY() >> 4, pos.getZ() >> 4));
+        return section == null ? AIR : section.get(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15);
+    }
+    
+    @Override
+    public FluidState getFluidState(BlockPos pos) {
+        return getBlockState(pos).getFluidState();
+    }
+    
+    @Override
+    public BlockEntity getBlockEntity(BlockPos pos) {
+        return null;
+    }
+    
+    @Override
+    public int getHeight() {
+        return height;
+    }
+    
+    @Override
+    public int getBottomY() {
+        return bottomY;
+    }
+    
+    public int getSectionCount() {
+        return sections.size();
+    }
+    
+    /**
+     * Collects sections along ray segments. Segments may be added from
+     * another thread, one build at a time; build() runs on the server thread.
+     * Keeps the chunks it looked up between builds.
+     */
+    public static class Builder {
+        // Chunks are looked up again after this many builds, so unloaded ones get dropped
+        private static final int CHUNK_CACHE_BUILDS = 16;
+        
+        private final Map<Long, Chunk> chunkCache = new HashMap<>();
+        private final Set<Long> wanted = new HashSet<>();
+        private World world;
+        private int builds = 0;
+        
+        public void begin(World world) {
+            if (world != this.world || ++builds >= CHUNK_CACHE_BUILDS) {
+                chunkCache.clear();
+                builds = 0;
+            }
+            this.world = world;
+            wanted.clear();
+        }
+        
+        // Every section the segment passes through (a 3D DDA over 16 block cells)
+        public void addSegment(Vec3d from, Vec3d to) {
+            int x = floorSection(from.x), y = floorSection(from.y), z = floorSection(from.z);
+            int endX = floorSection(to.x), endY = floorSection(to.y), endZ = floorSection(to.z);
+            double dx = to.x - from.x, dy = to.y - from.y, dz = to.z - from.z;
+            int stepX = dx > 0 ? 1 : -1, stepY = dy > 0 ? 1 : -1, stepZ = dz > 0 ? 1 : -1;
+            // Distance along the segment, as a fraction, to the next boundary and between boundaries
+            double tMaxX = boundary(from.x, x, stepX, dx), tMaxY = boundary(from.y, y, stepY, dy), tMaxZ = boundary(from.z, z, stepZ, dz);
+            double tDeltaX = dx == 0 ? Double.POSITIVE_INFINITY : 16 / Math.abs(dx);
+            double tDeltaY = dy == 0 ? Double.POSITIVE_INFINITY : 16 / Math.abs(dy);
+            double tDeltaZ = dz == 0 ? Double.POSITIVE_INFINITY : 16 / Math.abs(dz);
+            
+            wanted.add(ChunkSectionPos.asLong(x, y, z));
+            // Can't take more steps than cells between the ends, guards against rounding
+            int steps = Math.abs(endX - x) + Math.abs(endY - y) + Math.abs(endZ - z);
+            for (int i = 0; i < steps; i++) {
+                if (tMaxX <= tMaxY && tMaxX <= tMaxZ) {
+                    x += stepX;
+                    tMaxX += tDeltaX;
+                } else if (tMaxY <= tMaxZ) {
+                    y += stepY;
+                    tMaxY += tDeltaY;
+                } else {
+                    z += stepZ;
+                    tMaxZ += tDeltaZ;
+                }
+                wanted.add(ChunkSectionPos.asLong(x, y, z));
+            }
+            wanted.add(ChunkSectionPos.asLong(endX, endY, endZ));
+        }
+        
+        // Server thread only, see the class comment
+        public WorldSnapshot build() {
+            Map<Long, PalettedContainer<BlockState>> sections = new HashMap<>();
+            for (long key : wanted) {
+                int sectionX = ChunkSectionPos.unpackX(key);
+                int sectionY = ChunkSectionPos.unpackY(key);
+                int sectionZ = ChunkSectionPos.unpackZ(key);
+                if (sectionY < world.getBottomSectionCoord() || sectionY >= world.getTopSectionCoord()) continue;
+                
+                Chunk chunk = chunkCache.computeIfAbsent(ChunkSectionPos.asLong(sectionX, 0, sectionZ),
+                    k -> world.getChunkManager().getChunk(sectionX, sectionZ, ChunkStatus.FULL, false));
+                if (chunk == null) continue;
+                
+                ChunkSection[] array = chunk.getSectionArray();
+                int index = world.sectionCoordToIndex(sectionY);
+                if (index < 0 || index >= array.length || array[index].isEmpty()) continue;
+                sections.put(key, array[index].getBlockStateContainer().copy());
+            }
+            return new WorldSnapshot(sections, world.getBottomY(), world.getHeight());
+        }
+        
+        private static int floorSection(double coordinate) {
+            return (int) Math.floor(coordinate) >> 4;
+        }
+        
+        private static double boundary(double start, int section, int step, double delta) {
+            if (delta == 0) return Double.POSITIVE_INFINITY;
+            double edge = (step > 0 ? section + 1 : section) * 16.0;
+            return Math.abs(edge - start) / Math.abs(delta);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.yourmod.playeractionlogger.event;
+
+import com.yourmod.playeractionlogger.PlayerActionLogger;
+import com.yourmod.playeractionlogger.util.SpscQueue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Carries {@link GameEvent}s from game callbacks to their subscribers.
+ *
+ * <p>{@link #publish} is all a callback pays: every producing thread (server
+ * thread, client thread) gets its own {@link SpscQueue} lane on first use, so
+ * publishing is one lock-free offer. {@link #drain()}, called once per client
+ * tick, empties the lanes and runs the subscribers of each event in the order
+ * they subscribed, timing each subscriber on its own. Events keep their order
+ * within a lane, not across lanes.
+ */
+public class EventBus {
+    private static final int LANE_CAPACITY = 8192;
+    
+    private final List<Lane> lanes = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Lane> localLane = ThreadLocal.withInitial(this::newLane);
+    private final Map<Class<?>, List<Subscriber<?>>> subscribers = new ConcurrentHashMap<>();
+    private final List<Subscriber<?>> allSubscribers = new CopyOnWriteArrayList<>();
+    
+    public <E extends GameEvent> void subscribe(Class<E> type, String name, Consumer<? super E> handler) {
+        Subscriber<E> subscriber = new Subscriber<>(type, name, handler);
+        subscribers.computeIfAbsent(type, k -> new CopyOnWriteArrayList<>()).add(subscriber);
+        allSubscribers.add(subscriber);
+    }
+    
+    // Any thread. Dropped, and counted, if this thread's lane is full.
+    public void publish(GameEvent event) {
+        Lane lane = localLane.get();
+        if (!lane.queue.offer(event)) {
+            lane.dropped++;
+        }
+    }
+    
+    // Consumer thread only
+    public void drain() {
+        for (Lane lane : lanes) {
+            // Only what's there now, events published by subscribers wait for the next drain
+            for (int n = lane.queue.size(); n > 0; n--) {
+                GameEvent event = lane.queue.poll();
+                if (event == null) break;
+                dispatch(event);
+            }
+            
+            long dropped = lane.dropped;
+            if (dropped != lane.reportedDropped) {
+                PlayerActionLogger.LOGGER.warn("Dropped {} game events from {}, its event lane was full",
+                    dropped - lane.reportedDropped, lane.threadName);
+                lane.reportedDropped = dropped;
+            }
+            // The integrated server gets a new thread every time a world is opened
+            if (!lane.thread.isAlive() && lane.queue.isEmpty()) {
+                lanes.remove(lane);
+            }
+        }
+    }
+    
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void dispatch(GameEvent event) {
+        List<Subscriber<?>> list = subscribers.get(event.getClass());
+        if (list == null) return;
+        for (Subscriber subscriber : list) {
+            long start = System.nanoTime();
+            try {
+                subscriber.handler.accept(event);
+            } catch (RuntimeException e) {
+                subscriber.failures++;
+                PlayerActionLogger.LOGGER.error("Event subscriber " + subscriber.name + " failed on "
+                    + event.getClass().getSimpleName(), e);
+            }
+            long elapsed = System.nanoTime() - start;
+            subscriber.events++;
+            subscriber.totalNanos += elapsed;
+            if (elapsed > subscriber.maxNanos) subscriber.maxNanos = elapsed;
+        }
+    }
+    
+    // Per subscriber counters, written by the consumer thread
+    public List<Subscriber<?>> getSubscribers() {
+        return Collections.unmodifiableList(new ArrayList<>(allSubscribers));
+    }
+    
+    private Lane newLane() {
+        Lane lane = new Lane(Thread.currentThread());
+        lanes.add(lane);
+        return lane;
+    }
+    
+    private static class Lane {
+        final SpscQueue<GameEvent> queue = new SpscQueue<>(LANE_CAPACITY);
+        final Thread thread;
+        final String threadName;
+        // Written by the producer only
+        volatile long dropped = 0;
+        long reportedDropped = 0;
+        
+        Lane(Thread thread) {
+            this.thread = thread;
+            this.threadName = thread.getName();
+        }
+    }
+    
+    public static class Subscriber<E extends GameEvent> {
+        public final Class<E> type;
+        public final String name;
+        final Consumer<? super E> handler;
+        volatile long events = 0;
+        volatile long totalNanos = 0;
+        volatile long maxNanos = 0;
+        volatile long failures = 0;
+        
+        Subscriber(Class<E> type, String name, Consumer<? super E> handler) {
+            this.type = type;
+            this.name = name;
+            this.handler = handler;
+        }
+        
+        public long getEvents() { return events; }
+        public long getTotalNanos() { return totalNanos; }
+        public long getMaxNanos() { return maxNanos; }
+        public long getFailures() { return failures; }
+    }
+}
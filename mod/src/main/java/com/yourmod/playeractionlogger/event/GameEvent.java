@@ -0,0 +1,64 @@
+package com.yourmod.playeractionlogger.event;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.damage.DamageSource;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.recipe.Recipe;
+import net.minecraft.screen.ScreenHandler;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.Hand;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.List;
+
+/**
+ * Something a player did, captured in a game callback and handed to
+ * {@link EventBus} subscribers on the client thread. Records only hold what
+ * the callback already has at hand. Item stacks are copies, since the
+ * originals can change before the event is handled; for the same reason the
+ * events rules look at carry the time they happened.
+ */
+public interface GameEvent {
+    ServerPlayerEntity player();
+    
+    record BlockBroken(ServerPlayerEntity player, BlockPos pos, BlockState state, long time) implements GameEvent {}
+    
+    record BlockPlaced(ServerPlayerEntity player, BlockPos pos, BlockState state, long time) implements GameEvent {}
+    
+    // health is the player's before the hit is applied
+    record DamageTaken(ServerPlayerEntity player, DamageSource source, float amount, float health,
+                       long time) implements GameEvent {}
+    
+    record DamageDealt(ServerPlayerEntity player, Entity target, float amount) implements GameEvent {}
+    
+    record EntityKilled(ServerPlayerEntity player, Entity entity, long time) implements GameEvent {}
+    
+    record PlayerDied(ServerPlayerEntity player, DamageSource source) implements GameEvent {}
+    
+    // heldStack is what was in the hand before the interaction used it
+    record EntityInteracted(ServerPlayerEntity player, Entity entity, Hand hand, ItemStack heldStack,
+                            long time) implements GameEvent {}
+    
+    record ItemUsed(ServerPlayerEntity player, ItemStack stack, long time) implements GameEvent {}
+    
+    record ItemCrafted(ServerPlayerEntity player, Recipe<?> recipe, ItemStack result, long time) implements GameEvent {}
+    
+    // contents holds copies of the container's stacks by slot id before the first click, EMPTY for the player's slots
+    record ContainerOpened(ServerPlayerEntity player, ScreenHandler handler, List<ItemStack> contents) implements GameEvent {}
+    
+    // A block with an inventory the player right-clicked, what the next container screen probably shows;
+    // otherHalf is the other chest of a double chest, null otherwise
+    record ContainerUsed(ServerPlayerEntity player, String dimension, BlockPos pos, BlockPos otherHalf,
+                         Inventory inventory) implements GameEvent {}
+    
+    record SlotChanged(ServerPlayerEntity player, int slot, ItemStack newStack, ItemStack oldStack,
+                       boolean playerSlot) implements GameEvent {}
+    
+    record ContainerClosed(ServerPlayerEntity player) implements GameEvent {}
+    
+    record ChatSent(ServerPlayerEntity player, String message) implements GameEvent {}
+    
+    record CommandSent(ServerPlayerEntity player, String command) implements GameEvent {}
+}
@@ -0,0 +1,210 @@
+package com.yourmod.playeractionlogger.log;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Streams the lines of a {@link SessionArchiver} archive, inflating one frame
+ * at a time into reused buffers. {@link #seekSequence} and {@link #seekTime}
+ * use the frame index to skip straight to the first frame that matters.
+ *
+ * <pre>java -cp PAL.jar com.yourmod.playeractionlogger.log.ArchiveReader archive/Steve/00000000000000001742.pala [from sequence]</pre>
+ */
+public class ArchiveReader implements Closeable {
+    public static class Frame {
+        public final long offset;
+        public final int compressedLength;
+        public final int length;
+        public final long firstSequence;
+        // -1 if the segment had no index
+        public final long firstTime;
+        public final int records;
+        
+        Frame(long offset, int compressedLength, int length, long firstSequence, long firstTime, int records) {
+            this.offset = offset;
+            this.compressedLength = compressedLength;
+            this.length = length;
+            this.firstSequence = firstSequence;
+            this.firstTime = firstTime;
+            this.records = records;
+        }
+    }
+    
+    private final FileChannel channel;
+    private final List<Frame> frames;
+    private final Inflater inflater = new Inflater(true);
+    private ByteBuffer compressed = ByteBuffer.allocate(0);
+    private byte[] data = new byte[0];
+    private int dataLength = 0;
+    private int dataPosition = 0;
+    private int nextFrame = 0;
+    private long nextSequence;
+    private long skipUntil = -1;
+    
+    public ArchiveReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file);
+        try {
+            this.frames = readIndex();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        this.nextSequence = frames.isEmpty() ? 0 : frames.get(0).firstSequence;
+    }
+    
+    private List<Frame> readIndex() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(SessionArchiver.MAGIC.length + 1);
+        readFully(header, 0);
+        byte[] magic = new byte[SessionArchiver.MAGIC.length];
+        header.get(magic);
+        if (!Arrays.equals(magic, SessionArchiver.MAGIC)) throw new IOException("Not a PAL archive");
+        int version = header.get();
+        if (version != SessionArchiver.VERSION) throw new IOException("Unsupported archive version " + version);
+        
+        long size = channel.size();
+        if (size < header.capacity() + SessionArchiver.TRAILER_BYTES) throw new IOException("Truncated archive");
+        ByteBuffer trailer = ByteBuffer.allocate(SessionArchiver.TRAILER_BYTES);
+        readFully(trailer, size - SessionArchiver.TRAILER_BYTES);
+        int frameCount = trailer.getInt();
+        long indexOffset = trailer.getLong();
+        trailer.get(magic);
+        if (!Arrays.equals(magic, SessionArchiver.TRAILER_MAGIC)) throw new IOException("Truncated archive");
+        
+        ByteBuffer index = ByteBuffer.allocate(frameCount * SessionArchiver.INDEX_ENTRY_BYTES);
+        readFully(index, indexOffset);
+        List<Frame> list = new ArrayList<>(frameCount);
+        for (int i = 0; i < frameCount; i++) {
+            list.add(new Frame(index.getLong(), index.getInt(), index.getInt(),
+                index.getLong(), index.getLong(), index.getInt()));
+        }
+        return Collections.unmodifiableList(list);
+    }
+    
+    public List<Frame> getFrames() {
+        return frames;
+    }
+    
+    // Next record is the given sequence, or the first one after it
+    public void seekSequence(long sequence) {
+        int frame = 0;
+        for (int i = 0; i < frames.size(); i++) {
+            if (frames.get(i).firstSequence <= sequence) frame = i;
+        }
+        startAt(frame);
+        skipUntil = sequence;
+    }
+    
+    // Starts at the frame holding the given time. Only frames carry a time, so
+    // records up to one frame earlier can come first.
+    public void seekTime(long time) {
+        int frame = 0;
+        for (int i = 0; i < frames.size(); i++) {
+            long firstTime = frames.get(i).firstTime;
+            if (firstTime >= 0 && firstTime <= time) frame = i;
+        }
+        startAt(frame);
+    }
+    
+    private void startAt(int frame) {
+        nextFrame = frame;
+        dataLength = 0;
+        dataPosition = 0;
+        skipUntil = -1;
+        if (frame < frames.size()) {
+            nextSequence = frames.get(frame).firstSequence;
+        }
+    }
+    
+    // Null at the end of the archive
+    public LogCursor.Record next() throws IOException {
+        while (true) {
+            if (dataPosition >= dataLength) {
+                if (nextFrame >= frames.size()) return null;
+                inflate(frames.get(nextFrame++));
+                continue;
+            }
+            
+            int end = dataPosition;
+            while (end < dataLength && data[end] != '\n') end++;
+            String line = new String(data, dataPosition, end - dataPosition, StandardCharsets.UTF_8);
+            dataPosition = end + 1;
+            long sequence = nextSequence++;
+            if (sequence >= skipUntil) {
+                return new LogCursor.Record(sequence, line);
+            }
+        }
+    }
+    
+    private void inflate(Frame frame) throws IOException {
+        if (compressed.capacity() < frame.compressedLength) {
+            compressed = ByteBuffer.allocate(frame.compressedLength);
+        }
+        if (data.length < frame.length) {
+            data = new byte[frame.length];
+        }
+        compressed.clear().limit(frame.compressedLength);
+        readFully(compressed, frame.offset);
+        
+        inflater.reset();
+        inflater.setInput(compressed.array(), 0, frame.compressedLength);
+        try {
+            int length = 0;
+            while (length < frame.length && !inflater.finished()) {
+                int n = inflater.inflate(data, length, frame.length - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Damaged archive frame at " + frame.offset);
+                }
+                length += n;
+            }
+            dataLength = length;
+        } catch (DataFormatException e) {
+            throw new IOException("Damaged archive frame at " + frame.offset, e);
+        }
+        dataPosition = 0;
+        nextSequence = frame.firstSequence;
+    }
+    
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) throw new EOFException("Truncated archive");
+            position += read;
+        }
+        buffer.flip();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        channel.close();
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ArchiveReader <file.pala> [from sequence]");
+            return;
+        }
+        try (ArchiveReader reader = new ArchiveReader(Paths.get(args[0]));
+             PrintStream out = new PrintStream(new BufferedOutputStream(System.out, 65536), false, "UTF-8")) {
+            if (args.length > 1) {
+                reader.seekSequence(Long.parseLong(args[1]));
+            }
+            LogCursor.Record record;
+            while ((record = reader.next()) != null) {
+                out.print(record.sequence);
+                out.print(' ');
+                out.println(record.line);
+            }
+        }
+    }
+}
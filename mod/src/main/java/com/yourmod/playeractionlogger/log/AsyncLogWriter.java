@@ -0,0 +1,262 @@
+package com.yourmod.playeractionlogger.log;
+
+import com.yourmod.playeractionlogger.PalConfig;
+import com.yourmod.playeractionlogger.PlayerActionLogger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Moves writes to one {@link EventSink} off the game threads. Events go onto a
+ * bounded queue and a single background thread drains them in batches into
+ * the sink, flushing by byte count, event count or max latency, whichever
+ * comes first.
+ *
+ * <p>Submitters enqueue under a shared lock that close() takes exclusively,
+ * so nothing lands behind the shutdown marker: an event submitted once
+ * close() started is counted as dropped instead of silently lost.
+ */
+public class AsyncLogWriter {
+    public enum OverflowPolicy {
+        // Wait for room in the queue
+        BLOCK,
+        // Drop regular events, wait for room for important ones
+        DROP_REGULAR,
+        // Fold regular events into one "N events coalesced" line per player
+        COALESCE,
+        // Drop anything that doesn't fit, important or not, for sinks that mirror another
+        DROP
+    }
+    
+    private static final Entry SHUTDOWN = new Entry(null, null);
+    
+    private final String name;
+    private final EventSink sink;
+    private final BlockingQueue<Entry> queue;
+    private final OverflowPolicy overflowPolicy;
+    private final int flushBytes;
+    private final int flushEvents;
+    private final long flushLatencyNanos;
+    private final Map<String, AtomicInteger> coalesced = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread thread;
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    // Guarded by closeLock
+    private boolean closed = false;
+    
+    private int pendingEvents = 0;
+    private long pendingBytes = 0;
+    private long firstPendingTime = 0;
+    
+    public AsyncLogWriter(String name, EventSink sink, int queueCapacity, OverflowPolicy overflowPolicy,
+                          PalConfig.WriterConfig config) {
+        this.name = name;
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(Math.max(16, queueCapacity));
+        this.overflowPolicy = overflowPolicy != null ? overflowPolicy : OverflowPolicy.DROP_REGULAR;
+        this.flushBytes = Math.max(1, config.flushBytes);
+        this.flushEvents = Math.max(1, config.flushEvents);
+        this.flushLatencyNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, config.flushLatencyMillis));
+        
+        this.thread = new Thread(this::run, "PAL Sink " + name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+    
+    public void submit(LogEvent event) {
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                dropped.incrementAndGet();
+                return;
+            }
+            
+            Entry entry = new Entry(event.playerName, event);
+            if (queue.offer(entry)) return;
+            
+            if (overflowPolicy == OverflowPolicy.DROP) {
+                dropped.incrementAndGet();
+            } else if (event.important || overflowPolicy == OverflowPolicy.BLOCK) {
+                if (!put(entry)) dropped.incrementAndGet();
+            } else if (overflowPolicy == OverflowPolicy.COALESCE) {
+                coalesced.computeIfAbsent(event.playerName, k -> new AtomicInteger()).incrementAndGet();
+            } else {
+                dropped.incrementAndGet();
+            }
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+    
+    // Closes the player's log once everything queued before it is written
+    public void closePlayer(String playerName) {
+        closeLock.readLock().lock();
+        try {
+            if (!closed) {
+                put(new Entry(playerName, null));
+            }
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+    
+    // Drains the queue, flushes and closes the sink. Blocks until done.
+    public void close() {
+        // Waits for submitters already enqueueing, the writer is still draining for them
+        closeLock.writeLock().lock();
+        try {
+            if (closed) return;
+            closed = true;
+            put(SHUTDOWN);
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        
+        if (dropped.get() > 0) {
+            PlayerActionLogger.LOGGER.warn("Dropped {} log events on the {} sink, queue full or already closed",
+                dropped.get(), name);
+        }
+    }
+    
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+    
+    // Waits for room, false if the writer thread died and never will make any
+    private boolean put(Entry entry) {
+        boolean interrupted = false;
+        boolean queued = false;
+        while (!queued && thread.isAlive()) {
+            try {
+                queued = queue.offer(entry, 100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return queued;
+    }
+    
+    private void run() {
+        List<Entry> batch = new ArrayList<>(flushEvents);
+        boolean running = true;
+        
+        while (running) {
+            Entry head = null;
+            try {
+                if (pendingEvents == 0) {
+                    head = queue.take();
+                } else {
+                    long wait = flushLatencyNanos - (System.nanoTime() - firstPendingTime);
+                    head = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                }
+            } catch (InterruptedException e) {
+                // Only close() stops the writer
+            }
+            
+            if (head != null) {
+                batch.add(head);
+                queue.drainTo(batch, flushEvents * 4);
+                for (Entry entry : batch) {
+                    if (entry == SHUTDOWN) {
+                        running = false;
+                    } else if (entry.event == null) {
+                        flush();
+                        try {
+                            sink.close(entry.playerName);
+                        } catch (IOException e) {
+                            PlayerActionLogger.LOGGER.error("Failed to close " + name + " log for " + entry.playerName, e);
+                        }
+                    } else {
+                        write(entry.event);
+                    }
+                }
+                batch.clear();
+            }
+            
+            writeCoalesced();
+            
+            if (pendingEvents > 0 && (!running
+                    || pendingBytes >= flushBytes
+                    || pendingEvents >= flushEvents
+                    || System.nanoTime() - firstPendingTime >= flushLatencyNanos)) {
+                flush();
+            }
+        }
+        
+        sink.closeAll();
+    }
+    
+    private void write(LogEvent event) {
+        int bytes;
+        try {
+            bytes = sink.write(event);
+        } catch (IOException e) {
+            PlayerActionLogger.LOGGER.error("Failed to write " + name + " log for " + event.playerName, e);
+            return;
+        }
+        if (pendingEvents == 0) {
+            firstPendingTime = System.nanoTime();
+        }
+        pendingEvents++;
+        pendingBytes += bytes;
+    }
+    
+    private void writeCoalesced() {
+        if (coalesced.isEmpty()) return;
+        
+        for (Map.Entry<String, AtomicInteger> entry : coalesced.entrySet()) {
+            int count = entry.getValue().getAndSet(0);
+            if (count > 0) {
+                write(LogEvent.message(entry.getKey(),
+                    "(" + count + " events coalesced while the log queue was full)", false));
+            }
+        }
+    }
+    
+    private void flush() {
+        if (pendingEvents == 0) return;
+        try {
+            sink.flush();
+        } catch (IOException e) {
+            PlayerActionLogger.LOGGER.error("Failed to flush " + name + " logs", e);
+        }
+        pendingEvents = 0;
+        pendingBytes = 0;
+    }
+    
+    // A null event closes the player's log
+    private static class Entry {
+        final String playerName;
+        final LogEvent event;
+        
+        Entry(String playerName, LogEvent event) {
+            this.playerName = playerName;
+            this.event = event;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.yourmod.playeractionlogger.log;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Append-only binary journal of {@link LogEvent}s.
+ *
+ * <p>Layout: the {@link #MAGIC} header and a format version byte, then one
+ * record per event. A record starts with a tag byte: {@link #STRING_DEF}
+ * defines the next interned string, anything else is a {@link LogEventType}
+ * id with {@link #IMPORTANT_FLAG} set for important events, followed by the
+ * zigzag time delta in ms and the type specific payload. Names are written
+ * once and referenced by id afterwards, block positions as deltas from the
+ * previous one and vital stats as fixed point tenths.
+ *
+ * <p>Not thread-safe, the log writer thread owns it.
+ */
+public class EventJournal implements Closeable {
+    public static final byte[] MAGIC = {'P', 'A', 'L', 'J'};
+    public static final int VERSION = 1;
+    static final int STRING_DEF = 0;
+    static final int IMPORTANT_FLAG = 0x80;
+    
+    private final OutputStream out;
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private long lastTime = 0;
+    private int lastX = 0, lastY = 0, lastZ = 0;
+    private long bytesWritten = 0;
+    
+    public EventJournal(OutputStream out) throws IOException {
+        this.out = new BufferedOutputStream(new CountingStream(out), 16384);
+        this.out.write(MAGIC);
+        this.out.write(VERSION);
+    }
+    
+    public void append(LogEvent event) throws IOException {
+        // Interned names have to be defined before the record using them
+        int nameId = -1;
+        if (usesInternedName(event.type)) {
+            nameId = intern(event.name);
+        }
+        int[] blockIds = null;
+        if (event.blocks != null && !event.blocks.isEmpty()) {
+            blockIds = new int[event.blocks.size() * 2];
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : event.blocks.entrySet()) {
+                blockIds[i++] = intern(entry.getKey());
+                blockIds[i++] = entry.getValue();
+            }
+        }
+        
+        out.write(event.type.id | (event.important ? IMPORTANT_FLAG : 0));
+        VarInts.writeSignedVarLong(out, event.time - lastTime);
+        lastTime = event.time;
+        
+        switch (event.type) {
+            case MESSAGE, CHAT -> writeString(event.name);
+            case BLOCK_BREAK, BLOCK_PLACE -> {
+                VarInts.writeVarInt(out, nameId);
+                int x = LogEvent.unpackX(event.pos);
+                int y = LogEvent.unpackY(event.pos);
+                int z = LogEvent.unpackZ(event.pos);
+                VarInts.writeSignedVarInt(out, x - lastX);
+                VarInts.writeSignedVarInt(out, y - lastY);
+                VarInts.writeSignedVarInt(out, z - lastZ);
+                lastX = x;
+                lastY = y;
+                lastZ = z;
+            }
+            case DAMAGE_TAKEN, DAMAGE_DEALT -> {
+                VarInts.writeVarInt(out, nameId);
+                writeFloat(event.amount);
+            }
+            case ENTITY_KILL, PLAYER_KILL -> VarInts.writeVarInt(out, nameId);
+            case CRAFT -> {
+                VarInts.writeVarInt(out, nameId);
+                VarInts.writeVarInt(out, event.count);
+            }
+            case VITAL_STATS -> {
+                VarInts.writeSignedVarInt(out, Math.round(event.health * 10));
+                VarInts.writeSignedVarInt(out, Math.round(event.maxHealth * 10));
+                VarInts.writeVarInt(out, event.hunger);
+                VarInts.writeSignedVarInt(out, event.air);
+                VarInts.writeVarInt(out, event.maxAir);
+                VarInts.writeSignedVarLong(out, Math.round(event.x * 10));
+                VarInts.writeSignedVarLong(out, Math.round(event.y * 10));
+                VarInts.writeSignedVarLong(out, Math.round(event.z * 10));
+            }
+            case MINING_SUMMARY -> {
+                VarInts.writeVarLong(out, event.duration);
+                out.write(event.active ? 1 : 0);
+                writeBlocks(blockIds);
+            }
+            case CONSTRUCTION_SUMMARY -> {
+                VarInts.writeVarInt(out, nameId);
+                VarInts.writeVarInt(out, event.width);
+                VarInts.writeVarInt(out, event.height);
+                VarInts.writeVarInt(out, event.depth);
+                VarInts.writeVarLong(out, event.duration);
+                out.write(event.active ? 1 : 0);
+                writeBlocks(blockIds);
+            }
+        }
+    }
+    
+    public void flush() throws IOException {
+        out.flush();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+    
+    // Bytes handed to the underlying stream so far
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+    
+    static boolean usesInternedName(LogEventType type) {
+        return type != LogEventType.MESSAGE && type != LogEventType.CHAT
+            && type != LogEventType.VITAL_STATS && type != LogEventType.MINING_SUMMARY;
+    }
+    
+    private int intern(String value) throws IOException {
+        String key = value != null ? value : "";
+        Integer id = stringIds.get(key);
+        if (id == null) {
+            id = stringIds.size();
+            stringIds.put(key, id);
+            out.write(STRING_DEF);
+            writeString(key);
+        }
+        return id;
+    }
+    
+    private void writeBlocks(int[] blockIds) throws IOException {
+        if (blockIds == null) {
+            VarInts.writeVarInt(out, 0);
+            return;
+        }
+        VarInts.writeVarInt(out, blockIds.length / 2);
+        for (int value : blockIds) {
+            VarInts.writeVarInt(out, value);
+        }
+    }
+    
+    private void writeString(String value) throws IOException {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        VarInts.writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+    
+    private void writeFloat(float value) throws IOException {
+        int bits = Float.floatToIntBits(value);
+        out.write(bits >>> 24);
+        out.write(bits >>> 16);
+        out.write(bits >>> 8);
+        out.write(bits);
+    }
+    
+    private class CountingStream extends OutputStream {
+        private final OutputStream delegate;
+        
+        CountingStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            bytesWritten++;
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            bytesWritten += len;
+        }
+        
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+        
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
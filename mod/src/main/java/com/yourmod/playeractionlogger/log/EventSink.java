@@ -0,0 +1,28 @@
+package com.yourmod.playeractionlogger.log;
+
+import java.io.IOException;
+
+/**
+ * A destination for log events. Each sink registered with {@link SinkFanout}
+ * gets its own {@link AsyncLogWriter}, so every method here is called from
+ * that one writer thread and a sink never needs to be thread-safe on its own.
+ *
+ * <p>Events are shared between sinks, read concurrently by their writer
+ * threads, and must be treated as read-only. Live events carry no sequence
+ * number: it is the text sink's, and handed to its WriteListener.
+ */
+public interface EventSink {
+    // Returns the number of bytes written, for the writer's flush thresholds
+    int write(LogEvent event) throws IOException;
+    
+    default void flush() throws IOException {
+    }
+    
+    // The player left, everything they logged before has been written
+    default void close(String playerName) throws IOException {
+    }
+    
+    // Last call, after the queue is drained
+    default void closeAll() {
+    }
+}
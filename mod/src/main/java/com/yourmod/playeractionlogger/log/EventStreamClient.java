@@ -0,0 +1,66 @@
+package com.yourmod.playeractionlogger.log;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+/**
+ * Minimal {@link EventStreamServer} subscriber, prints every line it receives
+ * and reconnects from the last sequence it saw. Stands in for the Python bot
+ * when testing:
+ * <pre>java -cp PAL.jar com.yourmod.playeractionlogger.log.EventStreamClient 25590 Steve 0</pre>
+ * The first argument is a port, or the path of the Unix domain socket.
+ */
+public class EventStreamClient {
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: EventStreamClient <port|socket path> <player> [from sequence]");
+            return;
+        }
+        long next = args.length > 2 ? Long.parseLong(args[2]) : -1;
+        
+        while (true) {
+            try (SocketChannel channel = connect(args[0])) {
+                Writer writer = new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8);
+                writer.write("SUBSCRIBE " + args[1] + (next >= 0 ? " " + next : "") + "\n");
+                writer.flush();
+                
+                BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    Channels.newInputStream(channel), StandardCharsets.UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    System.out.println(line);
+                    int space = line.indexOf(' ');
+                    if (space > 0) {
+                        try {
+                            next = Long.parseLong(line.substring(0, space)) + 1;
+                        } catch (NumberFormatException e) {
+                            // Error message from the server
+                        }
+                    }
+                }
+                System.err.println("Disconnected, resuming from " + next);
+            } catch (IOException e) {
+                System.err.println("Connection failed: " + e.getMessage());
+            }
+            Thread.sleep(1000);
+        }
+    }
+    
+    private static SocketChannel connect(String address) throws IOException {
+        try {
+            int port = Integer.parseInt(address);
+            return SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        } catch (NumberFormatException e) {
+            SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+            channel.connect(UnixDomainSocketAddress.of(Paths.get(address)));
+            return channel;
+        }
+    }
+}
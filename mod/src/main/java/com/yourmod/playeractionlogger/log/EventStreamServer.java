@@ -0,0 +1,257 @@
+package com.yourmod.playeractionlogger.log;
+
+import com.yourmod.playeractionlogger.PalConfig;
+import com.yourmod.playeractionlogger.PlayerActionLogger;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Pushes newly written log lines to local subscribers, over a Unix domain
+ * socket or a loopback TCP port. The file logs are the source of truth, this
+ * only saves readers from polling them.
+ *
+ * <p>Protocol, one line per message in UTF-8:
+ * <pre>
+ * client: SUBSCRIBE &lt;player&gt; [from sequence]
+ * server: &lt;sequence&gt; &lt;log line&gt;
+ * server: ...
+ * </pre>
+ * With a sequence the server first replays what is on disk from there (see
+ * {@link LogCursor}), then goes on with live events, without gaps or
+ * duplicates. Without one only live events are sent. A subscriber that can't
+ * keep up overflows its bounded buffer and gets disconnected; it reconnects
+ * with the last sequence it handled + 1 to pick up where it left off.
+ */
+public class EventStreamServer implements PlayerLogFiles.WriteListener, Closeable {
+    private static final int MAX_REQUEST_LENGTH = 256;
+    
+    private final Path logDir;
+    private final PalConfig.StreamConfig config;
+    private final Map<String, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ServerSocketChannel server;
+    private final Path socketFile;
+    private final Thread acceptThread;
+    private volatile boolean closed = false;
+    
+    public EventStreamServer(Path logDir, PalConfig.StreamConfig config) throws IOException {
+        this.logDir = logDir;
+        this.config = config;
+        
+        if (config.unixSocket) {
+            socketFile = logDir.resolve(config.socketPath);
+            Files.createDirectories(logDir);
+            // Left behind if the game didn't shut down cleanly
+            Files.deleteIfExists(socketFile);
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            server.bind(UnixDomainSocketAddress.of(socketFile));
+        } else {
+            socketFile = null;
+            server = ServerSocketChannel.open();
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), config.port));
+        }
+        
+        acceptThread = new Thread(this::acceptLoop, "PAL Event Stream");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        PlayerActionLogger.LOGGER.info("Streaming log events on {}", server.getLocalAddress());
+    }
+    
+    // Called on the log writer thread, must never block
+    @Override
+    public void onWritten(String playerName, long sequence, String line) {
+        List<Subscriber> list = subscribers.get(playerName);
+        if (list == null) return;
+        for (Subscriber subscriber : list) {
+            subscriber.offer(new Line(sequence, line));
+        }
+    }
+    
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                SocketChannel channel = server.accept();
+                int count = 0;
+                for (List<Subscriber> list : subscribers.values()) count += list.size();
+                if (count >= config.maxSubscribers) {
+                    PlayerActionLogger.LOGGER.warn("Refusing event stream subscriber, {} already connected", count);
+                    channel.close();
+                    continue;
+                }
+                
+                Subscriber subscriber = new Subscriber(channel);
+                Thread thread = new Thread(subscriber::run, "PAL Event Stream Subscriber");
+                thread.setDaemon(true);
+                subscriber.thread = thread;
+                thread.start();
+            } catch (IOException e) {
+                if (!closed) {
+                    PlayerActionLogger.LOGGER.error("Event stream accept failed", e);
+                }
+            }
+        }
+    }
+    
+    private static class Line {
+        final long sequence;
+        final String text;
+        
+        Line(long sequence, String text) {
+            this.sequence = sequence;
+            this.text = text;
+        }
+    }
+    
+    private class Subscriber {
+        private final SocketChannel channel;
+        private final BlockingQueue<Line> queue;
+        private volatile boolean evicted = false;
+        // While replaying, live lines that don't fit are read back from disk instead
+        private volatile boolean replaying = false;
+        private Thread thread;
+        private String playerName;
+        private long lastSent = -1;
+        
+        Subscriber(SocketChannel channel) {
+            this.channel = channel;
+            this.queue = new ArrayBlockingQueue<>(Math.max(16, config.subscriberBuffer));
+        }
+        
+        void offer(Line line) {
+            if (!queue.offer(line) && !replaying && !evicted) {
+                // Too slow, drop it rather than hold up the writer or grow without bounds
+                evicted = true;
+                PlayerActionLogger.LOGGER.info("Disconnecting slow event stream subscriber for {} at sequence {}",
+                    playerName, lastSent);
+                disconnect();
+            }
+        }
+        
+        void run() {
+            try {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    Channels.newInputStream(channel), StandardCharsets.UTF_8), MAX_REQUEST_LENGTH);
+                Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    Channels.newOutputStream(channel), StandardCharsets.UTF_8), 16384);
+                
+                String request = reader.readLine();
+                String[] parts = request != null ? request.trim().split("\\s+") : new String[0];
+                if (parts.length < 2 || !parts[0].equals("SUBSCRIBE")) {
+                    writer.write("ERROR expected: SUBSCRIBE <player> [from sequence]\n");
+                    writer.flush();
+                    return;
+                }
+                playerName = parts[1];
+                long from = parts.length > 2 ? Long.parseLong(parts[2]) : -1;
+                
+                // Register before replaying so nothing written in between is missed
+                replaying = from >= 0;
+                subscribers.computeIfAbsent(playerName, k -> new CopyOnWriteArrayList<>()).add(this);
+                if (replaying) {
+                    replay(from, writer);
+                }
+                
+                while (!evicted && !closed) {
+                    Line line = queue.poll();
+                    if (line == null) {
+                        writer.flush();
+                        line = queue.take();
+                    }
+                    send(line.sequence, line.text, writer);
+                }
+            } catch (IOException | NumberFormatException e) {
+                if (!evicted && !closed) {
+                    PlayerActionLogger.LOGGER.debug("Event stream subscriber for {} left", playerName, e);
+                }
+            } catch (InterruptedException e) {
+                // Closed
+            } finally {
+                if (playerName != null) {
+                    List<Subscriber> list = subscribers.get(playerName);
+                    if (list != null) list.remove(this);
+                }
+                disconnect();
+            }
+        }
+        
+        private void replay(long from, Writer writer) throws IOException {
+            try (LogCursor cursor = new LogCursor(logDir.resolve(playerName), from)) {
+                replayAvailable(cursor, writer);
+                // Lines dropped before this point are on disk already, one more pass picks them up
+                replaying = false;
+                replayAvailable(cursor, writer);
+            }
+        }
+        
+        private void replayAvailable(LogCursor cursor, Writer writer) throws IOException {
+            LogCursor.Record record;
+            while (!evicted && (record = cursor.next()) != null) {
+                send(record.sequence, record.line, writer);
+                // Live copies of what was just replayed, drop them to keep room in the buffer
+                Line head;
+                while ((head = queue.peek()) != null && head.sequence <= lastSent) {
+                    queue.poll();
+                }
+            }
+        }
+        
+        private void send(long sequence, String text, Writer writer) throws IOException {
+            if (sequence <= lastSent) return;
+            writer.write(Long.toString(sequence));
+            writer.write(' ');
+            writer.write(text);
+            writer.write('\n');
+            lastSent = sequence;
+        }
+        
+        void disconnect() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+            if (thread != null && thread != Thread.currentThread()) {
+                thread.interrupt();
+            }
+        }
+    }
+    
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            server.close();
+        } catch (IOException e) {
+            PlayerActionLogger.LOGGER.error("Failed to close event stream", e);
+        }
+        for (List<Subscriber> list : subscribers.values()) {
+            for (Subscriber subscriber : list) {
+                subscriber.disconnect();
+            }
+        }
+        subscribers.clear();
+        if (socketFile != null) {
+            try {
+                Files.deleteIfExists(socketFile);
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.yourmod.playeractionlogger.log;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads back an {@link EventJournal}. Meant for offline tools, it has no
+ * dependency on Minecraft classes. A record cut short by a crash or by a
+ * writer that is still running is treated as the end of the journal.
+ *
+ * <pre>java -cp PAL.jar com.yourmod.playeractionlogger.log.JournalReader Steve/00000000000000000000.journal</pre>
+ * prints the journal in the same format as the text log.
+ */
+public class JournalReader implements Closeable {
+    private final InputStream in;
+    private final String playerName;
+    private long nextSequence;
+    private final List<String> strings = new ArrayList<>();
+    private long lastTime = 0;
+    private int lastX = 0, lastY = 0, lastZ = 0;
+    
+    public JournalReader(InputStream in, String playerName, long firstSequence) throws IOException {
+        this.in = in instanceof BufferedInputStream ? in : new BufferedInputStream(in, 16384);
+        this.playerName = playerName;
+        this.nextSequence = firstSequence;
+        
+        byte[] magic = this.in.readNBytes(EventJournal.MAGIC.length);
+        if (!Arrays.equals(magic, EventJournal.MAGIC)) {
+            throw new IOException("Not a PAL event journal");
+        }
+        int version = this.in.read();
+        if (version != EventJournal.VERSION) {
+            throw new IOException("Unsupported journal version " + version);
+        }
+    }
+    
+    // Opens <player>/<segment base>.journal, events get their sequence numbers back
+    public static JournalReader open(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        String playerName = parent != null ? parent.getFileName().toString() : "";
+        long base = Math.max(0, SegmentedLogStore.parseBase(file.getFileName().toString()));
+        return new JournalReader(Files.newInputStream(file), playerName, base);
+    }
+    
+    // Returns the next event, or null at the end of the journal
+    public LogEvent next() throws IOException {
+        try {
+            while (true) {
+                int tag = in.read();
+                if (tag < 0) return null;
+                
+                if (tag == EventJournal.STRING_DEF) {
+                    strings.add(readString());
+                    continue;
+                }
+                
+                LogEventType type = LogEventType.byId(tag & ~EventJournal.IMPORTANT_FLAG);
+                if (type == null) {
+                    throw new IOException("Unknown event type " + (tag & ~EventJournal.IMPORTANT_FLAG));
+                }
+                lastTime += VarInts.readSignedVarLong(in);
+                LogEvent event = new LogEvent(type, (tag & EventJournal.IMPORTANT_FLAG) != 0, lastTime, playerName);
+                readPayload(event);
+                event.sequence = nextSequence++;
+                return event;
+            }
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+    
+    private void readPayload(LogEvent event) throws IOException {
+        switch (event.type) {
+            case MESSAGE, CHAT -> event.name = readString();
+            case BLOCK_BREAK, BLOCK_PLACE -> {
+                event.name = string(VarInts.readVarInt(in));
+                lastX += VarInts.readSignedVarInt(in);
+                lastY += VarInts.readSignedVarInt(in);
+                lastZ += VarInts.readSignedVarInt(in);
+                event.pos = LogEvent.packPos(lastX, lastY, lastZ);
+            }
+            case DAMAGE_TAKEN, DAMAGE_DEALT -> {
+                event.name = string(VarInts.readVarInt(in));
+                event.amount = readFloat();
+            }
+            case ENTITY_KILL, PLAYER_KILL -> event.name = string(VarInts.readVarInt(in));
+            case CRAFT -> {
+                event.name = string(VarInts.readVarInt(in));
+                event.count = VarInts.readVarInt(in);
+            }
+            case VITAL_STATS -> {
+                event.health = VarInts.readSignedVarInt(in) / 10f;
+                event.maxHealth = VarInts.readSignedVarInt(in) / 10f;
+                event.hunger = VarInts.readVarInt(in);
+                event.air = VarInts.readSignedVarInt(in);
+                event.maxAir = VarInts.readVarInt(in);
+                event.x = VarInts.readSignedVarLong(in) / 10.0;
+                event.y = VarInts.readSignedVarLong(in) / 10.0;
+                event.z = VarInts.readSignedVarLong(in) / 10.0;
+            }
+            case MINING_SUMMARY -> {
+                event.duration = VarInts.readVarLong(in);
+                event.active = readByte() != 0;
+                event.blocks = readBlocks();
+            }
+            case CONSTRUCTION_SUMMARY -> {
+                event.name = string(VarInts.readVarInt(in));
+                event.width = VarInts.readVarInt(in);
+                event.height = VarInts.readVarInt(in);
+                event.depth = VarInts.readVarInt(in);
+                event.duration = VarInts.readVarLong(in);
+                event.active = readByte() != 0;
+                event.blocks = readBlocks();
+            }
+        }
+    }
+    
+    private Map<String, Integer> readBlocks() throws IOException {
+        int size = VarInts.readVarInt(in);
+        Map<String, Integer> blocks = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            String name = string(VarInts.readVarInt(in));
+            blocks.put(name, VarInts.readVarInt(in));
+        }
+        return blocks;
+    }
+    
+    private String string(int id) throws IOException {
+        if (id < 0 || id >= strings.size()) {
+            throw new IOException("Undefined string id " + id);
+        }
+        return strings.get(id);
+    }
+    
+    private String readString() throws IOException {
+        int length = VarInts.readVarInt(in);
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length < length) throw new EOFException();
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private float readFloat() throws IOException {
+        int bits = readByte() << 24 | readByte() << 16 | readByte() << 8 | readByte();
+        return Float.intBitsToFloat(bits);
+    }
+    
+    private int readByte() throws IOException {
+        int b = in.read();
+        if (b < 0) throw new EOFException();
+        return b;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: JournalReader <file.journal>");
+            return;
+        }
+        LogRenderer renderer = LogRenderer.forCurrentThread();
+        try (JournalReader reader = open(Paths.get(args[0]))) {
+            LogEvent event;
+            while ((event = reader.next()) != null) {
+                System.out.println(renderer.render(event));
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.yourmod.playeractionlogger.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Reads a player's {@link SegmentedLogStore} from a given sequence number and
+ * keeps following it as it grows, without re-reading what was already seen.
+ *
+ * <p>Cursor protocol: remember the sequence of the last record you handled,
+ * and resume with {@code new LogCursor(dir, last + 1)}. The cursor finds the
+ * segment named by the greatest base not above that sequence, reads its
+ * {@code .idx} entry to seek straight to the record and then streams lines.
+ * {@link #next()} returns null when it has caught up with the writer; call it
+ * again later to pick up new records, including ones in newer segments. If the
+ * requested sequence was already removed by retention, reading starts at the
+ * oldest record still on disk.
+ *
+ * <pre>java -cp PAL.jar com.yourmod.playeractionlogger.log.LogCursor logs/player_actions/Steve 1200</pre>
+ * prints everything from sequence 1200 on and keeps tailing.
+ */
+public class LogCursor implements Closeable {
+    public static class Record {
+        public final long sequence;
+        public final String line;
+        
+        Record(long sequence, String line) {
+            this.sequence = sequence;
+            this.line = line;
+        }
+    }
+    
+    private final Path dir;
+    private long nextSequence;
+    private long segmentBase = -1;
+    private FileChannel segment;
+    private long position;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(64 * 1024);
+    // Segment offset of the first byte in readBuffer, -1 when it holds nothing
+    private long bufferStart = -1;
+    private byte[] lineBuffer = new byte[1024];
+    
+    public LogCursor(Path playerDir, long fromSequence) {
+        this.dir = playerDir;
+        this.nextSequence = Math.max(0, fromSequence);
+    }
+    
+    // Sequence number of the record the next call to next() returns
+    public long getNextSequence() {
+        return nextSequence;
+    }
+    
+    public Record next() throws IOException {
+        if (segment == null && !open()) {
+            return null;
+        }
+        
+        String line = readLine();
+        if (line == null) {
+            // Caught up with this segment, move on if the writer already rolled past it
+            if (hasSegment(nextSequence) && nextSequence != segmentBase) {
+                closeSegment();
+                if (!open()) return null;
+                line = readLine();
+            }
+            if (line == null) return null;
+        }
+        return new Record(nextSequence++, line);
+    }
+    
+    private boolean open() throws IOException {
+        List<Long> bases = SegmentedLogStore.listSegments(dir);
+        if (bases.isEmpty()) return false;
+        
+        if (nextSequence < bases.get(0)) {
+            nextSequence = bases.get(0);
+        }
+        long base = -1;
+        for (long candidate : bases) {
+            if (candidate <= nextSequence) base = candidate;
+        }
+        
+        Path file = dir.resolve(SegmentedLogStore.formatBase(base) + SegmentedLogStore.SEGMENT_EXTENSION);
+        segment = FileChannel.open(file);
+        segmentBase = base;
+        position = seek(base, nextSequence - base);
+        return true;
+    }
+    
+    // Byte offset of record n of the segment, from the index where it reaches
+    private long seek(long base, long n) throws IOException {
+        Path indexFile = dir.resolve(SegmentedLogStore.formatBase(base) + SegmentedLogStore.INDEX_EXTENSION);
+        long indexed = 0;
+        long offset = 0;
+        
+        if (Files.exists(indexFile)) {
+            try (RandomAccessFile index = new RandomAccessFile(indexFile.toFile(), "r")) {
+                long entries = index.length() / SegmentedLogStore.INDEX_ENTRY_BYTES;
+                if (entries > 0) {
+                    indexed = Math.min(n, entries - 1);
+                    index.seek(indexed * SegmentedLogStore.INDEX_ENTRY_BYTES);
+                    offset = index.readInt();
+                }
+            }
+        }
+        
+        // The index trails the segment a little, skip the remaining records line by line
+        position = offset;
+        for (long i = indexed; i < n; i++) {
+            if (readLine() == null) {
+                nextSequence = base + i;
+                break;
+            }
+        }
+        return position;
+    }
+    
+    private String readLine() throws IOException {
+        int length = 0;
+        long start = position;
+        while (true) {
+            if (bufferStart < 0 || position < bufferStart || position >= bufferStart + readBuffer.limit()) {
+                readBuffer.clear();
+                int read = segment.read(readBuffer, position);
+                if (read <= 0) break;
+                readBuffer.flip();
+                bufferStart = position;
+            }
+            
+            for (int i = (int) (position - bufferStart); i < readBuffer.limit(); i++) {
+                byte b = readBuffer.get(i);
+                if (b == 0) {
+                    // Unwritten preallocated space, read it again next time
+                    bufferStart = -1;
+                    position = start;
+                    return null;
+                }
+                position++;
+                if (b == '\n') {
+                    return new String(lineBuffer, 0, length, StandardCharsets.UTF_8);
+                }
+                if (length == lineBuffer.length) {
+                    byte[] grown = new byte[lineBuffer.length * 2];
+                    System.arraycopy(lineBuffer, 0, grown, 0, length);
+                    lineBuffer = grown;
+                }
+                lineBuffer[length++] = b;
+            }
+        }
+        // Partial line, wait for the rest
+        bufferStart = -1;
+        position = start;
+        return null;
+    }
+    
+    private boolean hasSegment(long base) {
+        return Files.exists(dir.resolve(SegmentedLogStore.formatBase(base) + SegmentedLogStore.SEGMENT_EXTENSION));
+    }
+    
+    private void closeSegment() throws IOException {
+        if (segment != null) {
+            segment.close();
+            segment = null;
+            bufferStart = -1;
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        closeSegment();
+    }
+    
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: LogCursor <player log dir> [from sequence]");
+            return;
+        }
+        long from = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        try (LogCursor cursor = new LogCursor(Paths.get(args[0]), from)) {
+            while (true) {
+                Record record = cursor.next();
+                if (record == null) {
+                    Thread.sleep(250);
+                    continue;
+                }
+                System.out.println(record.sequence + " " + record.line);
+            }
+        }
+    }
+}
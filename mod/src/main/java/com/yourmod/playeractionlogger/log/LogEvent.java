@@ -0,0 +1,133 @@
+package com.yourmod.playeractionlogger.log;
+
+import java.util.Map;
+
+/**
+ * One typed log event. Only the fields used by {@link #type} are set, the
+ * others keep their defaults. Text rendering lives in {@link LogRenderer} and
+ * the binary encoding in {@link EventJournal}.
+ */
+public class LogEvent {
+    public final LogEventType type;
+    public final boolean important;
+    public final long time;
+    public final String playerName;
+    // Only on events read back from a journal, -1 on live ones (see EventSink)
+    public long sequence = -1;
+    
+    // Block, item, entity, damage source/target, structure type or free text
+    public String name;
+    // Packed block position, same layout as BlockPos.asLong()
+    public long pos;
+    public float amount;
+    public int count;
+    
+    // Vital stats
+    public float health, maxHealth;
+    public int hunger, air, maxAir;
+    public double x, y, z;
+    
+    // Mining and construction summaries
+    public Map<String, Integer> blocks;
+    public long duration;
+    public boolean active;
+    public int width, height, depth;
+    
+    public LogEvent(LogEventType type, boolean important, long time, String playerName) {
+        this.type = type;
+        this.important = important;
+        this.time = time;
+        this.playerName = playerName;
+    }
+    
+    public static LogEvent message(String playerName, String text, boolean important) {
+        LogEvent event = new LogEvent(LogEventType.MESSAGE, important, System.currentTimeMillis(), playerName);
+        event.name = text;
+        return event;
+    }
+    
+    public static LogEvent chat(String playerName, String message) {
+        LogEvent event = new LogEvent(LogEventType.CHAT, true, System.currentTimeMillis(), playerName);
+        event.name = message;
+        return event;
+    }
+    
+    public static LogEvent block(LogEventType type, String playerName, String blockName, int x, int y, int z) {
+        LogEvent event = new LogEvent(type, false, System.currentTimeMillis(), playerName);
+        event.name = blockName;
+        event.pos = packPos(x, y, z);
+        return event;
+    }
+    
+    public static LogEvent damage(LogEventType type, String playerName, String other, float amount) {
+        LogEvent event = new LogEvent(type, false, System.currentTimeMillis(), playerName);
+        event.name = other;
+        event.amount = amount;
+        return event;
+    }
+    
+    public static LogEvent kill(String playerName, String victim, boolean isPlayer) {
+        LogEvent event = new LogEvent(isPlayer ? LogEventType.PLAYER_KILL : LogEventType.ENTITY_KILL,
+            isPlayer, System.currentTimeMillis(), playerName);
+        event.name = victim;
+        return event;
+    }
+    
+    public static LogEvent craft(String playerName, String itemName, int count) {
+        LogEvent event = new LogEvent(LogEventType.CRAFT, false, System.currentTimeMillis(), playerName);
+        event.name = itemName;
+        event.count = count;
+        return event;
+    }
+    
+    public static LogEvent vitalStats(String playerName, float health, float maxHealth, int hunger,
+                                      int air, int maxAir, double x, double y, double z) {
+        LogEvent event = new LogEvent(LogEventType.VITAL_STATS, false, System.currentTimeMillis(), playerName);
+        event.health = health;
+        event.maxHealth = maxHealth;
+        event.hunger = hunger;
+        event.air = air;
+        event.maxAir = maxAir;
+        event.x = x;
+        event.y = y;
+        event.z = z;
+        return event;
+    }
+    
+    public static LogEvent miningSummary(String playerName, Map<String, Integer> blocks, long duration, boolean active) {
+        LogEvent event = new LogEvent(LogEventType.MINING_SUMMARY, !active, System.currentTimeMillis(), playerName);
+        event.blocks = blocks;
+        event.duration = duration;
+        event.active = active;
+        return event;
+    }
+    
+    public static LogEvent constructionSummary(String playerName, String structureType, Map<String, Integer> blocks,
+                                               int width, int height, int depth, long duration, boolean active) {
+        LogEvent event = new LogEvent(LogEventType.CONSTRUCTION_SUMMARY, !active, System.currentTimeMillis(), playerName);
+        event.name = structureType;
+        event.blocks = blocks;
+        event.width = width;
+        event.height = height;
+        event.depth = depth;
+        event.duration = duration;
+        event.active = active;
+        return event;
+    }
+    
+    public static long packPos(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFFL) << 38 | ((long) z & 0x3FFFFFFL) << 12 | ((long) y & 0xFFFL);
+    }
+    
+    public static int unpackX(long pos) {
+        return (int) (pos >> 38);
+    }
+    
+    public static int unpackY(long pos) {
+        return (int) (pos << 52 >> 52);
+    }
+    
+    public static int unpackZ(long pos) {
+        return (int) (pos << 26 >> 38);
+    }
+}
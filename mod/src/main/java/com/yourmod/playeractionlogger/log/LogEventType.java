@@ -0,0 +1,35 @@
+package com.yourmod.playeractionlogger.log;
+
+public enum LogEventType {
+    MESSAGE(1),
+    CHAT(2),
+    BLOCK_BREAK(3),
+    BLOCK_PLACE(4),
+    DAMAGE_TAKEN(5),
+    DAMAGE_DEALT(6),
+    ENTITY_KILL(7),
+    PLAYER_KILL(8),
+    CRAFT(9),
+    VITAL_STATS(10),
+    MINING_SUMMARY(11),
+    CONSTRUCTION_SUMMARY(12);
+    
+    private static final LogEventType[] BY_ID = new LogEventType[16];
+    
+    static {
+        for (LogEventType type : values()) {
+            BY_ID[type.id] = type;
+        }
+    }
+    
+    // Stable on-disk code, never reuse or renumber
+    public final int id;
+    
+    LogEventType(int id) {
+        this.id = id;
+    }
+    
+    public static LogEventType byId(int id) {
+        return id >= 0 && id < BY_ID.length ? BY_ID[id] : null;
+    }
+}
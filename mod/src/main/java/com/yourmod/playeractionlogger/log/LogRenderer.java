@@ -0,0 +1,222 @@
+package com.yourmod.playeractionlogger.log;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Turns {@link LogEvent}s into the lines of the human readable log. Works the
+ * same on live events and on events read back from a journal.
+ *
+ * <p>Built for the writer's hot path: the "[HH:mm:ss] " prefix is cached per
+ * second, numbers are appended by hand instead of through String.format, and
+ * {@link #encode} writes the UTF-8 line into a reused byte array. An instance
+ * is not thread-safe, use {@link #forCurrentThread()} from any thread.
+ */
+public class LogRenderer {
+    private static final ThreadLocal<LogRenderer> LOCAL = ThreadLocal.withInitial(LogRenderer::new);
+    
+    private final TimeZone timeZone = TimeZone.getDefault();
+    private final StringBuilder sb = new StringBuilder(256);
+    private final char[] prefix = "[00:00:00] ".toCharArray();
+    private long prefixSecond = Long.MIN_VALUE;
+    private byte[] bytes = new byte[512];
+    
+    public static LogRenderer forCurrentThread() {
+        return LOCAL.get();
+    }
+    
+    public String render(LogEvent event) {
+        sb.setLength(0);
+        appendLine(event);
+        return sb.toString();
+    }
+    
+    // Encodes the line and a trailing newline into getBytes(), returns the length
+    public int encode(LogEvent event) {
+        sb.setLength(0);
+        appendLine(event);
+        
+        int length = sb.length();
+        if (bytes.length < length * 3 + 1) {
+            bytes = new byte[Math.max(bytes.length * 2, length * 3 + 1)];
+        }
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            char c = sb.charAt(i);
+            if (c < 0x80) {
+                // One record per line, so a stray newline would shift every sequence after it
+                bytes[n++] = (byte) (c == '\n' ? ' ' : c);
+            } else if (c < 0x800) {
+                bytes[n++] = (byte) (0xC0 | c >> 6);
+                bytes[n++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(sb.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, sb.charAt(++i));
+                bytes[n++] = (byte) (0xF0 | cp >> 18);
+                bytes[n++] = (byte) (0x80 | cp >> 12 & 0x3F);
+                bytes[n++] = (byte) (0x80 | cp >> 6 & 0x3F);
+                bytes[n++] = (byte) (0x80 | cp & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                bytes[n++] = '?';
+            } else {
+                bytes[n++] = (byte) (0xE0 | c >> 12);
+                bytes[n++] = (byte) (0x80 | c >> 6 & 0x3F);
+                bytes[n++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        bytes[n++] = '\n';
+        return n;
+    }
+    
+    // Valid up to the length returned by the last encode()
+    public byte[] getBytes() {
+        return bytes;
+    }
+    
+    // The line encode() just wrote, without its newline
+    public String lastLine() {
+        return sb.toString().replace('\n', ' ');
+    }
+    
+    public static String renderBody(LogEvent event) {
+        LogRenderer renderer = forCurrentThread();
+        renderer.sb.setLength(0);
+        renderer.appendBody(event);
+        return renderer.sb.toString();
+    }
+    
+    private void appendLine(LogEvent event) {
+        appendPrefix(event.time);
+        appendBody(event);
+    }
+    
+    private void appendPrefix(long time) {
+        long second = Math.floorDiv(time, 1000);
+        if (second != prefixSecond) {
+            // Same local time SimpleDateFormat("HH:mm:ss") gives
+            long local = Math.floorDiv(time + timeZone.getOffset(time), 1000);
+            int secondOfDay = (int) Math.floorMod(local, 86400L);
+            putTwoDigits(1, secondOfDay / 3600);
+            putTwoDigits(4, secondOfDay / 60 % 60);
+            putTwoDigits(7, secondOfDay % 60);
+            prefixSecond = second;
+        }
+        sb.append(prefix);
+    }
+    
+    private void putTwoDigits(int at, int value) {
+        prefix[at] = (char) ('0' + value / 10);
+        prefix[at + 1] = (char) ('0' + value % 10);
+    }
+    
+    private void appendBody(LogEvent event) {
+        switch (event.type) {
+            case MESSAGE:
+                if (event.important) sb.append("IMPORTANT: ");
+                sb.append(event.name);
+                break;
+            case CHAT:
+                sb.append("CHAT: ").append(event.name);
+                break;
+            case BLOCK_BREAK:
+                sb.append("Broke ").append(event.name).append(" at ");
+                appendPos(event.pos);
+                break;
+            case BLOCK_PLACE:
+                sb.append("Placed ").append(event.name).append(" at ");
+                appendPos(event.pos);
+                break;
+            case DAMAGE_TAKEN:
+                sb.append("Took ");
+                appendTenths(event.amount);
+                sb.append(" damage from ").append(event.name);
+                break;
+            case DAMAGE_DEALT:
+                sb.append("Dealt ");
+                appendTenths(event.amount);
+                sb.append(" damage to ").append(event.name);
+                break;
+            case ENTITY_KILL:
+                sb.append("Killed ").append(event.name);
+                break;
+            case PLAYER_KILL:
+                sb.append("IMPORTANT: Killed player ").append(event.name);
+                break;
+            case CRAFT:
+                sb.append("Crafted ").append(event.count).append("x ").append(event.name);
+                break;
+            case VITAL_STATS:
+                sb.append("Vital Stats - Health: ");
+                appendTenths(event.health);
+                sb.append('/');
+                appendTenths(event.maxHealth);
+                sb.append(" | Hunger: ").append(event.hunger).append("/20 | Air: ")
+                    .append(event.air).append('/').append(event.maxAir).append(" | Pos: ");
+                appendTenths(event.x);
+                sb.append(", ");
+                appendTenths(event.y);
+                sb.append(", ");
+                appendTenths(event.z);
+                break;
+            case MINING_SUMMARY:
+                appendMining(event);
+                break;
+            case CONSTRUCTION_SUMMARY:
+                appendConstruction(event);
+                break;
+            default:
+                sb.append(event.type.name());
+        }
+    }
+    
+    private void appendMining(LogEvent event) {
+        if (event.active) {
+            sb.append("Mining update (").append(event.duration / 1000).append("s): ");
+        } else {
+            sb.append("Mining session ended (").append(event.duration / 1000).append("s): ");
+        }
+        appendBlocks(event.blocks);
+    }
+    
+    private void appendConstruction(LogEvent event) {
+        if (event.active) {
+            sb.append("Building in progress (").append(event.duration / 1000).append("s): ");
+        } else {
+            sb.append("Construction completed: ").append(event.name);
+            sb.append(" ").append(event.width).append("x").append(event.height).append("x").append(event.depth);
+            sb.append(" (").append(event.duration / 1000).append("s) Blocks: ");
+        }
+        appendBlocks(event.blocks);
+    }
+    
+    private void appendBlocks(Map<String, Integer> blocks) {
+        for (Map.Entry<String, Integer> entry : blocks.entrySet()) {
+            sb.append(entry.getKey()).append(" x").append(entry.getValue().intValue()).append(", ");
+        }
+        // Trailing ", ", or the ": " of the header when there are no blocks
+        sb.setLength(sb.length() - 2);
+    }
+    
+    private void appendPos(long pos) {
+        sb.append(LogEvent.unpackX(pos)).append(',').append(LogEvent.unpackY(pos)).append(',').append(LogEvent.unpackZ(pos));
+    }
+    
+    // Same output as "%.1f" in Locale.ROOT (floats are widened to double first)
+    private void appendTenths(double value) {
+        double abs = Math.abs(value);
+        double scaled = abs * 10;
+        double floor = Math.floor(scaled);
+        // Near a tie the multiplication may have rounded, and Formatter goes by the
+        // shortest decimal form of the value; those rare cases take the slow path
+        if (Double.isNaN(value) || Double.isInfinite(value) || abs >= 1e15
+                || Math.abs(scaled - floor - 0.5) < 1e-6) {
+            sb.append(String.format(Locale.ROOT, "%.1f", value));
+            return;
+        }
+        
+        long tenths = (long) floor;
+        if (scaled - floor > 0.5) tenths++;
+        if (value < 0 || (value == 0 && 1 / value < 0)) sb.append('-');
+        sb.append(tenths / 10).append('.').append((char) ('0' + tenths % 10));
+    }
+}
@@ -0,0 +1,33 @@
+package com.yourmod.playeractionlogger.log;
+
+import com.yourmod.playeractionlogger.util.RingBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the last events in memory, for tests and debugging tools that want to
+ * see exactly what was logged without reading files back.
+ */
+public class MemorySink implements EventSink {
+    private final RingBuffer<LogEvent> events;
+    
+    public MemorySink(int capacity) {
+        this.events = new RingBuffer<>(capacity);
+    }
+    
+    @Override
+    public synchronized int write(LogEvent event) {
+        events.add(event, event.time);
+        return 0;
+    }
+    
+    // Copy of the kept events, oldest first
+    public synchronized List<LogEvent> getEvents() {
+        return new ArrayList<>(events.view());
+    }
+    
+    public synchronized void clear() {
+        events.clear();
+    }
+}
@@ -0,0 +1,156 @@
+package com.yourmod.playeractionlogger.log;
+
+import com.yourmod.playeractionlogger.PalConfig;
+import com.yourmod.playeractionlogger.PlayerActionLogger;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link EventSink} writing each player's text log into a
+ * {@link SegmentedLogStore} and, when enabled, an {@link EventJournal} next to
+ * every segment ({@code <segment>.journal}). Finished segments go to the
+ * {@link SessionArchiver} if there is one. Owned by the writer thread.
+ */
+public class PlayerLogFiles implements EventSink {
+    public static final String JOURNAL_EXTENSION = ".journal";
+    
+    public interface WriteListener {
+        // Called on the writer thread once the line is in the segment
+        void onWritten(String playerName, long sequence, String line);
+    }
+    
+    private final Path rootDir;
+    private final PalConfig.StorageConfig storageConfig;
+    private final boolean binaryJournal;
+    private final Map<String, PlayerLog> playerLogs = new HashMap<>();
+    private final LogRenderer renderer = new LogRenderer();
+    private WriteListener writeListener;
+    private SessionArchiver archiver;
+    
+    public PlayerLogFiles(Path rootDir, PalConfig config) {
+        this.rootDir = rootDir;
+        this.storageConfig = config.storage;
+        this.binaryJournal = config.writer.binaryJournal;
+    }
+    
+    public void setWriteListener(WriteListener writeListener) {
+        this.writeListener = writeListener;
+    }
+    
+    public void setArchiver(SessionArchiver archiver) {
+        this.archiver = archiver;
+    }
+    
+    @Override
+    public int write(LogEvent event) throws IOException {
+        PlayerLog log = getOrCreateLog(event.playerName);
+        
+        // Kept off the event, other sinks read it from their own threads
+        long sequence = log.nextSequence++;
+        
+        // The text log is rendered from the same event
+        int bytes = renderer.encode(event);
+        log.text.append(sequence, event.time, renderer.getBytes(), 0, bytes);
+        
+        if (writeListener != null) {
+            writeListener.onWritten(event.playerName, sequence, renderer.lastLine());
+        }
+        
+        if (log.journal != null) {
+            long before = log.journal.getBytesWritten();
+            log.journal.append(event);
+            bytes += (int) (log.journal.getBytesWritten() - before);
+        }
+        return bytes;
+    }
+    
+    @Override
+    public void flush() throws IOException {
+        // Segment writes are visible to readers right away, the index and journal are buffered
+        for (PlayerLog log : playerLogs.values()) {
+            log.text.flush();
+            if (log.journal != null) {
+                log.journal.flush();
+            }
+        }
+    }
+    
+    @Override
+    public void close(String playerName) throws IOException {
+        PlayerLog log = playerLogs.remove(playerName);
+        if (log != null) {
+            log.close();
+        }
+    }
+    
+    @Override
+    public void closeAll() {
+        for (PlayerLog log : playerLogs.values()) {
+            try {
+                log.close();
+            } catch (IOException e) {
+                PlayerActionLogger.LOGGER.error("Failed to close player log", e);
+            }
+        }
+        playerLogs.clear();
+    }
+    
+    private PlayerLog getOrCreateLog(String playerName) throws IOException {
+        PlayerLog log = playerLogs.get(playerName);
+        if (log == null) {
+            log = new PlayerLog(new SegmentedLogStore(rootDir, playerName, storageConfig));
+            playerLogs.put(playerName, log);
+            if (archiver != null) {
+                // Segments from before a crash never got archived
+                archiver.submitPending(log.text.getDirectory(), log.nextSequence);
+            }
+        }
+        return log;
+    }
+    
+    private class PlayerLog {
+        final SegmentedLogStore text;
+        EventJournal journal;
+        long nextSequence;
+        // Segment being written, archived once the store rolls past it
+        long activeBase = -1;
+        
+        PlayerLog(SegmentedLogStore text) throws IOException {
+            this.text = text;
+            this.nextSequence = text.recoverNextSequence();
+            text.setRollListener(this::onRoll);
+        }
+        
+        private void onRoll(long segmentBase) throws IOException {
+            if (segmentBase != activeBase && activeBase >= 0 && archiver != null) {
+                archiver.submit(text.getDirectory(), activeBase);
+            }
+            activeBase = segmentBase;
+            
+            if (binaryJournal) {
+                // One journal per segment so every segment can be read on its own
+                if (journal != null) {
+                    journal.close();
+                }
+                Path file = text.segmentFile(segmentBase, JOURNAL_EXTENSION);
+                journal = new EventJournal(new FileOutputStream(file.toFile(), false));
+            }
+        }
+        
+        void close() throws IOException {
+            long base = text.getSegmentBase();
+            text.close();
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+            if (base >= 0 && archiver != null) {
+                archiver.submit(text.getDirectory(), base);
+            }
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.yourmod.playeractionlogger.log;
+
+import com.yourmod.playeractionlogger.PalConfig;
+import com.yourmod.playeractionlogger.PlayerActionLogger;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only log split into fixed-size memory-mapped segments:
+ * <pre>
+ * logs/player_actions/&lt;player&gt;/00000000000000000000.log
+ * logs/player_actions/&lt;player&gt;/00000000000000000000.idx
+ * logs/player_actions/&lt;player&gt;/00000000000000001742.log
+ * logs/player_actions/&lt;player&gt;/00000000000000001742.idx
+ * logs/player_actions/&lt;player&gt;/latest                 name of the active segment
+ * logs/player_actions/&lt;player&gt;_latest.log             symlink to the active segment
+ * </pre>
+ * Every record has a sequence number, increasing by one per record across
+ * segments and sessions. A segment is named after the sequence number of its
+ * first record, and its {@code .idx} sidecar holds one {@link #INDEX_ENTRY_BYTES}
+ * entry per record: the big-endian int byte offset of the record in the
+ * segment, then its big-endian long timestamp in ms. Record {@code n} of
+ * segment {@code base} is therefore at entry {@code n - base}. The index is
+ * buffered and flushed with {@link #flush()}, so it may trail the segment by a
+ * few records; {@link LogCursor} scans forward from the last entry it finds.
+ *
+ * <p>Segments are preallocated, so the unwritten tail reads as NUL bytes. Tailers
+ * can map a segment themselves and stop at the first NUL; sealed segments are
+ * trimmed to their written length when the platform allows it. Files that
+ * share a segment base name ({@code 00000000000000000001.*}) belong to that
+ * segment and are removed with it by retention.
+ *
+ * <p>Not thread-safe, the log writer thread owns it.
+ */
+public class SegmentedLogStore implements Closeable {
+    public static final String SEGMENT_EXTENSION = ".log";
+    public static final String INDEX_EXTENSION = ".idx";
+    public static final String LATEST_POINTER = "latest";
+    public static final int INDEX_ENTRY_BYTES = 12;
+    private static final int BASE_DIGITS = 20;
+    
+    public interface RollListener {
+        void onRoll(long segmentBase) throws IOException;
+    }
+    
+    private final Path dir;
+    private final Path latestLink;
+    private final int segmentBytes;
+    private final long rollIntervalMillis;
+    private final long retentionBytes;
+    private final long retentionMillis;
+    private RollListener rollListener;
+    
+    private long segmentBase = -1;
+    private long segmentOpenedAt;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private DataOutputStream index;
+    private boolean symlinkFailed = false;
+    
+    public SegmentedLogStore(Path rootDir, String playerName, PalConfig.StorageConfig config) throws IOException {
+        this.dir = rootDir.resolve(playerName);
+        this.latestLink = rootDir.resolve(playerName + "_latest" + SEGMENT_EXTENSION);
+        this.segmentBytes = Math.max(64 * 1024, config.segmentBytes);
+        this.rollIntervalMillis = TimeUnit.MINUTES.toMillis(config.rollIntervalMinutes);
+        this.retentionBytes = config.retentionBytes;
+        this.retentionMillis = TimeUnit.DAYS.toMillis(config.retentionDays);
+        Files.createDirectories(dir);
+    }
+    
+    public void setRollListener(RollListener rollListener) {
+        this.rollListener = rollListener;
+    }
+    
+    // data is one UTF-8 record ending with '\n'
+    public void append(long sequence, long time, byte[] data, int offset, int length) throws IOException {
+        // Records are counted by their newline, so one too long for a segment is cut but keeps it
+        boolean truncated = length > segmentBytes;
+        if (truncated) {
+            length = segmentBytes - 1;
+            // Not in the middle of a multi-byte character
+            while (length > 0 && (data[offset + length] & 0xC0) == 0x80) {
+                length--;
+            }
+        }
+        if (buffer == null
+                || buffer.remaining() < length + (truncated ? 1 : 0)
+                || (rollIntervalMillis > 0 && System.currentTimeMillis() - segmentOpenedAt >= rollIntervalMillis)) {
+            roll(sequence);
+        }
+        index.writeInt(buffer.position());
+        index.writeLong(time);
+        buffer.put(data, offset, length);
+        if (truncated) {
+            buffer.put((byte) '\n');
+        }
+    }
+    
+    public void flush() throws IOException {
+        if (index != null) {
+            index.flush();
+        }
+    }
+    
+    // Sequence number of the next record, recovered from the newest segment on disk
+    public long recoverNextSequence() throws IOException {
+        List<Long> bases = listSegments();
+        if (bases.isEmpty()) return 0;
+        long base = bases.get(bases.size() - 1);
+        return base + countRecords(segmentFile(base, SEGMENT_EXTENSION));
+    }
+    
+    // Records are newline terminated, the preallocated tail is NUL
+    static long countRecords(Path segment) throws IOException {
+        long count = 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(segment), 65536)) {
+            int b;
+            while ((b = in.read()) > 0) {
+                if (b == '\n') count++;
+            }
+        }
+        return count;
+    }
+    
+    public Path getDirectory() {
+        return dir;
+    }
+    
+    public long getSegmentBase() {
+        return segmentBase;
+    }
+    
+    // Bytes written to the active segment
+    public int getPosition() {
+        return buffer != null ? buffer.position() : 0;
+    }
+    
+    public Path segmentFile(long base, String extension) {
+        return dir.resolve(formatBase(base) + extension);
+    }
+    
+    // Every segment base on disk, oldest first
+    public List<Long> listSegments() throws IOException {
+        return listSegments(dir);
+    }
+    
+    public static List<Long> listSegments(Path dir) throws IOException {
+        List<Long> bases = new ArrayList<>();
+        if (!Files.isDirectory(dir)) return bases;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + SEGMENT_EXTENSION)) {
+            for (Path file : stream) {
+                long base = parseBase(file.getFileName().toString());
+                if (base >= 0) {
+                    bases.add(base);
+                }
+            }
+        }
+        bases.sort(null);
+        return bases;
+    }
+    
+    public static String formatBase(long base) {
+        return String.format("%0" + BASE_DIGITS + "d", base);
+    }
+    
+    public static long parseBase(String fileName) {
+        if (fileName.length() < BASE_DIGITS + 1 || fileName.charAt(BASE_DIGITS) != '.') return -1;
+        try {
+            return Long.parseLong(fileName.substring(0, BASE_DIGITS));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    private void roll(long base) throws IOException {
+        seal();
+        
+        // A segment with this base can only exist if it never got a record, so it's safe to replace
+        Path file = segmentFile(base, SEGMENT_EXTENSION);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        index = new DataOutputStream(new BufferedOutputStream(
+            new FileOutputStream(segmentFile(base, INDEX_EXTENSION).toFile(), false), 8192));
+        segmentBase = base;
+        segmentOpenedAt = System.currentTimeMillis();
+        
+        updateLatestPointer(file);
+        if (rollListener != null) {
+            rollListener.onRoll(base);
+        }
+        applyRetention();
+    }
+    
+    private void seal() {
+        if (channel == null) return;
+        try {
+            index.close();
+        } catch (IOException e) {
+            PlayerActionLogger.LOGGER.error("Failed to close log index " + segmentBase, e);
+        }
+        index = null;
+        int written = buffer.position();
+        buffer.force();
+        buffer = null;
+        try {
+            // Fails while the mapping is still alive on some platforms, readers stop at NUL anyway
+            channel.truncate(written);
+        } catch (IOException e) {
+            PlayerActionLogger.LOGGER.debug("Could not trim log segment {}", segmentBase, e);
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            PlayerActionLogger.LOGGER.error("Failed to close log segment " + segmentBase, e);
+        }
+        channel = null;
+    }
+    
+    private void updateLatestPointer(Path segment) throws IOException {
+        Path pointer = dir.resolve(LATEST_POINTER);
+        Path temp = dir.resolve(LATEST_POINTER + ".tmp");
+        Files.write(temp, segment.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            Files.move(temp, pointer, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, pointer, StandardCopyOption.REPLACE_EXISTING);
+        }
+        
+        if (symlinkFailed) return;
+        try {
+            Files.deleteIfExists(latestLink);
+            Files.createSymbolicLink(latestLink, latestLink.getParent().relativize(segment));
+        } catch (IOException | UnsupportedOperationException e) {
+            // Typically Windows without developer mode, the pointer file still works
+            symlinkFailed = true;
+            PlayerActionLogger.LOGGER.info("Cannot link {} to the active log segment, use {} instead", latestLink, pointer);
+        }
+    }
+    
+    private void applyRetention() {
+        if (retentionBytes <= 0 && retentionMillis <= 0) return;
+        
+        // All files of a segment, by segment base, oldest first
+        TreeMap<Long, List<Path>> segments = new TreeMap<>();
+        long total = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path file : stream) {
+                long base = parseBase(file.getFileName().toString());
+                if (base >= 0) {
+                    segments.computeIfAbsent(base, k -> new ArrayList<>()).add(file);
+                    total += Files.size(file);
+                }
+            }
+        } catch (IOException e) {
+            PlayerActionLogger.LOGGER.error("Failed to scan log segments in " + dir, e);
+            return;
+        }
+        
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Long, List<Path>> segment : segments.entrySet()) {
+            if (segment.getKey() == segmentBase) break;
+            
+            try {
+                Path main = segmentFile(segment.getKey(), SEGMENT_EXTENSION);
+                long modified = Files.exists(main) ? Files.getLastModifiedTime(main).toMillis() : 0;
+                boolean tooOld = retentionMillis > 0 && now - modified > retentionMillis;
+                boolean overBudget = retentionBytes > 0 && total > retentionBytes;
+                if (!tooOld && !overBudget) break;
+                
+                for (Path file : segment.getValue()) {
+                    long size = Files.size(file);
+                    Files.deleteIfExists(file);
+                    total -= size;
+                }
+            } catch (IOException e) {
+                // Most likely still open in a tailer, try again on the next roll
+                PlayerActionLogger.LOGGER.debug("Could not delete log segment {}", segment.getKey(), e);
+            }
+        }
+    }
+    
+    @Override
+    public void close() {
+        seal();
+    }
+}
@@ -0,0 +1,241 @@
+package com.yourmod.playeractionlogger.log;
+
+import com.yourmod.playeractionlogger.PalConfig;
+import com.yourmod.playeractionlogger.PlayerActionLogger;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses finished log segments into long-term archives on a background
+ * thread, one {@code archive/<player>/<segment base>.pala} per segment. The
+ * segments themselves are left to {@link SegmentedLogStore} retention.
+ *
+ * <p>Archive layout, all numbers big-endian:
+ * <pre>
+ * "PALA" version:u8
+ * frame*                 raw deflate of whole lines, up to frameBytes each
+ * index: frameCount x (offset:i64 compressedLength:i32 length:i32
+ *                      firstSequence:i64 firstTime:i64 records:i32)
+ * frameCount:i32 indexOffset:i64 "PALX"
+ * </pre>
+ * Frames are independent, so {@link ArchiveReader} can seek to a sequence or
+ * time from the index and only inflate from there.
+ */
+public class SessionArchiver {
+    public static final String ARCHIVE_DIR = "archive";
+    public static final String ARCHIVE_EXTENSION = ".pala";
+    static final byte[] MAGIC = {'P', 'A', 'L', 'A'};
+    static final byte[] TRAILER_MAGIC = {'P', 'A', 'L', 'X'};
+    static final int VERSION = 1;
+    static final int INDEX_ENTRY_BYTES = 8 + 4 + 4 + 8 + 8 + 4;
+    static final int TRAILER_BYTES = 4 + 8 + 4;
+    
+    private final Path archiveRoot;
+    private final int frameBytes;
+    private final int level;
+    private final ExecutorService executor;
+    
+    public SessionArchiver(Path logRoot, PalConfig.ArchiveConfig config) {
+        this.archiveRoot = logRoot.resolve(ARCHIVE_DIR);
+        this.frameBytes = Math.max(4096, config.frameBytes);
+        this.level = config.compressionLevel;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "PAL Archiver");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+    
+    // Queues a sealed segment, does nothing if it's archived already
+    public void submit(Path playerDir, long segmentBase) {
+        String playerName = playerDir.getFileName().toString();
+        executor.execute(() -> {
+            Path target = archiveRoot.resolve(playerName)
+                .resolve(SegmentedLogStore.formatBase(segmentBase) + ARCHIVE_EXTENSION);
+            if (Files.exists(target)) return;
+            try {
+                archive(playerDir, segmentBase, target);
+            } catch (IOException e) {
+                PlayerActionLogger.LOGGER.error("Failed to archive log segment " + playerDir.resolve(
+                    SegmentedLogStore.formatBase(segmentBase) + SegmentedLogStore.SEGMENT_EXTENSION), e);
+            }
+        });
+    }
+    
+    /**
+     * Queues the segments of a player missed by a crash. nextSequence is the
+     * store's recoverNextSequence(): an empty newest segment has that base and
+     * is reopened by the next roll, so only bases below it are finished.
+     */
+    public void submitPending(Path playerDir, long nextSequence) throws IOException {
+        for (long base : SegmentedLogStore.listSegments(playerDir)) {
+            if (base < nextSequence) submit(playerDir, base);
+        }
+    }
+    
+    private void archive(Path playerDir, long base, Path target) throws IOException {
+        String name = SegmentedLogStore.formatBase(base);
+        Path segment = playerDir.resolve(name + SegmentedLogStore.SEGMENT_EXTENSION);
+        Path index = playerDir.resolve(name + SegmentedLogStore.INDEX_EXTENSION);
+        if (!Files.exists(segment)) return;
+        
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Deflater deflater = new Deflater(level, true);
+        boolean empty;
+        ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+        DataOutputStream indexOut = new DataOutputStream(indexBytes);
+        int frameCount = 0;
+        
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(segment), 65536);
+             DataInputStream times = Files.exists(index)
+                 ? new DataInputStream(new BufferedInputStream(Files.newInputStream(index), 8192)) : null;
+             FileOutputStream fileOut = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 65536))) {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            long offset = MAGIC.length + 1;
+            
+            byte[] frame = new byte[frameBytes];
+            byte[] compressed = new byte[frameBytes + frameBytes / 8 + 64];
+            int frameLength = 0;
+            int lineStart = 0;
+            int frameRecords = 0;
+            long frameSequence = base;
+            long frameTime = -1;
+            long sequence = base;
+            boolean done = false;
+            
+            while (!done) {
+                int b = in.read();
+                // NUL is the unwritten tail of a segment that wasn't trimmed
+                if (b <= 0) {
+                    done = true;
+                } else {
+                    if (frameLength == frame.length) {
+                        if (lineStart > 0) {
+                            // Frame full, flush the complete lines and carry the partial one over
+                            offset += writeFrame(out, indexOut, deflater, frame, lineStart, compressed,
+                                offset, frameSequence, frameTime, frameRecords);
+                            frameCount++;
+                            System.arraycopy(frame, lineStart, frame, 0, frameLength - lineStart);
+                            frameLength -= lineStart;
+                            lineStart = 0;
+                            frameRecords = 0;
+                            frameSequence = sequence;
+                            frameTime = -1;
+                        } else {
+                            // Single line longer than a frame
+                            byte[] grown = new byte[frame.length * 2];
+                            System.arraycopy(frame, 0, grown, 0, frameLength);
+                            frame = grown;
+                            compressed = new byte[frame.length + frame.length / 8 + 64];
+                        }
+                    }
+                    frame[frameLength++] = (byte) b;
+                    if (b == '\n') {
+                        long time = readTime(times);
+                        if (frameRecords == 0) frameTime = time;
+                        frameRecords++;
+                        sequence++;
+                        lineStart = frameLength;
+                    }
+                }
+            }
+            // A partial last line can only come from a crash, it isn't a record
+            if (lineStart > 0) {
+                offset += writeFrame(out, indexOut, deflater, frame, lineStart, compressed,
+                    offset, frameSequence, frameTime, frameRecords);
+                frameCount++;
+            }
+            
+            empty = frameCount == 0;
+            out.write(indexBytes.toByteArray());
+            out.writeInt(frameCount);
+            out.writeLong(offset);
+            out.write(TRAILER_MAGIC);
+            out.flush();
+            fileOut.getFD().sync();
+        } finally {
+            deflater.end();
+        }
+        
+        if (empty) {
+            // Rolled but never written to, the next segment may reuse its name
+            Files.delete(temp);
+            return;
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    private static long readTime(DataInputStream times) throws IOException {
+        if (times == null) return -1;
+        try {
+            times.readInt();
+            return times.readLong();
+        } catch (EOFException e) {
+            return -1;
+        }
+    }
+    
+    // Returns the number of bytes written
+    private static int writeFrame(DataOutputStream out, DataOutputStream index, Deflater deflater,
+                                  byte[] frame, int length, byte[] compressed,
+                                  long offset, long firstSequence, long firstTime, int records) throws IOException {
+        deflater.reset();
+        deflater.setInput(frame, 0, length);
+        deflater.finish();
+        int compressedLength = 0;
+        while (!deflater.finished()) {
+            if (compressedLength == compressed.length) {
+                // Incompressible data can come out a little larger, just write it in pieces
+                out.write(compressed, 0, compressedLength);
+                int written = compressedLength;
+                compressedLength = 0;
+                while (!deflater.finished()) {
+                    int n = deflater.deflate(compressed);
+                    out.write(compressed, 0, n);
+                    written += n;
+                }
+                writeIndexEntry(index, offset, written, length, firstSequence, firstTime, records);
+                return written;
+            }
+            compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+        }
+        out.write(compressed, 0, compressedLength);
+        writeIndexEntry(index, offset, compressedLength, length, firstSequence, firstTime, records);
+        return compressedLength;
+    }
+    
+    private static void writeIndexEntry(DataOutputStream index, long offset, int compressedLength, int length,
+                                        long firstSequence, long firstTime, int records) throws IOException {
+        index.writeLong(offset);
+        index.writeInt(compressedLength);
+        index.writeInt(length);
+        index.writeLong(firstSequence);
+        index.writeLong(firstTime);
+        index.writeInt(records);
+    }
+    
+    // Finishes what's queued. Blocks until done.
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                PlayerActionLogger.LOGGER.warn("Log archiving didn't finish, the rest is archived on next start");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.yourmod.playeractionlogger.log;
+
+import com.yourmod.playeractionlogger.PalConfig;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Hands each event to every {@link EventSink} whose {@link SinkFilter}
+ * accepts it. Every sink has its own {@link AsyncLogWriter} queue and thread,
+ * so a slow sink only ever backs up its own queue, never the game thread or
+ * the other sinks.
+ */
+public class SinkFanout {
+    private final PalConfig.WriterConfig writerConfig;
+    private final List<Route> routes = new CopyOnWriteArrayList<>();
+    private volatile boolean closed = false;
+    
+    public SinkFanout(PalConfig.WriterConfig writerConfig) {
+        this.writerConfig = writerConfig;
+    }
+    
+    // Queue size and overflow policy from the writer config
+    public void add(String name, EventSink sink, SinkFilter filter) {
+        add(name, sink, filter, writerConfig.queueCapacity, writerConfig.overflowPolicy);
+    }
+    
+    public void add(String name, EventSink sink, SinkFilter filter, int queueCapacity,
+                    AsyncLogWriter.OverflowPolicy overflowPolicy) {
+        if (closed) throw new IllegalStateException("Sinks are closed");
+        routes.add(new Route(name, filter,
+            new AsyncLogWriter(name, sink, queueCapacity, overflowPolicy, writerConfig)));
+    }
+    
+    public void submit(LogEvent event) {
+        for (Route route : routes) {
+            if (route.filter.accepts(event)) {
+                route.writer.submit(event);
+            }
+        }
+    }
+    
+    public void closePlayer(String playerName) {
+        for (Route route : routes) {
+            route.writer.closePlayer(playerName);
+        }
+    }
+    
+    // Drains and closes every sink, in the order they were added
+    public void close() {
+        closed = true;
+        for (Route route : routes) {
+            route.writer.close();
+        }
+    }
+    
+    public Map<String, Long> getDroppedCounts() {
+        Map<String, Long> dropped = new LinkedHashMap<>();
+        for (Route route : routes) {
+            dropped.put(route.name, route.writer.getDroppedCount());
+        }
+        return dropped;
+    }
+    
+    private static class Route {
+        final String name;
+        final SinkFilter filter;
+        final AsyncLogWriter writer;
+        
+        Route(String name, SinkFilter filter, AsyncLogWriter writer) {
+            this.name = name;
+            this.filter = filter;
+            this.writer = writer;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.yourmod.playeractionlogger.log;
+
+import com.yourmod.playeractionlogger.PalConfig;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Decides which events reach a sink, checked on the submitting thread so
+ * filtered events never take a queue slot.
+ */
+public class SinkFilter {
+    public static final SinkFilter ALL = new SinkFilter(false, EnumSet.allOf(LogEventType.class));
+    
+    private final boolean importantOnly;
+    private final Set<LogEventType> types;
+    
+    public SinkFilter(boolean importantOnly, Set<LogEventType> types) {
+        this.importantOnly = importantOnly;
+        this.types = EnumSet.copyOf(types);
+    }
+    
+    public static SinkFilter from(PalConfig.SinkConfig config) {
+        Set<LogEventType> types = config.types == null || config.types.isEmpty()
+            ? EnumSet.allOf(LogEventType.class) : EnumSet.noneOf(LogEventType.class);
+        if (config.types != null) {
+            for (LogEventType type : config.types) {
+                // Unknown names in the config come back as null
+                if (type != null) types.add(type);
+            }
+        }
+        return new SinkFilter(config.importantOnly, types);
+    }
+    
+    public boolean accepts(LogEvent event) {
+        return (event.important || !importantOnly) && types.contains(event.type);
+    }
+}
@@ -0,0 +1,33 @@
+package com.yourmod.playeractionlogger.log;
+
+import org.slf4j.Logger;
+
+/**
+ * Mirrors events to the game log. Usually filtered down to important events,
+ * which is what used to be logged from the game thread.
+ */
+public class Slf4jSink implements EventSink {
+    private final Logger logger;
+    
+    public Slf4jSink(Logger logger) {
+        this.logger = logger;
+    }
+    
+    @Override
+    public int write(LogEvent event) {
+        switch (event.type) {
+            case MESSAGE:
+                logger.info("[{}] {}", event.playerName, event.name);
+                break;
+            case CHAT:
+                logger.info("[{}] Chat: {}", event.playerName, event.name);
+                break;
+            case PLAYER_KILL:
+                logger.info("[{}] Killed player {}", event.playerName, event.name);
+                break;
+            default:
+                logger.info("[{}] {}", event.playerName, LogRenderer.renderBody(event));
+        }
+        return 0;
+    }
+}
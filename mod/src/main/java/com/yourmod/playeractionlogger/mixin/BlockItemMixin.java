@@ -1,7 +1,7 @@
 package com.yourmod.playeractionlogger.mixin;
 
 import com.yourmod.playeractionlogger.PlayerActionLogger;
-import com.yourmod.playeractionlogger.PlayerTracker;
+import com.yourmod.playeractionlogger.event.GameEvent;
 import net.minecraft.block.BlockState;
 import net.minecraft.item.BlockItem;
 import net.minecraft.item.ItemPlacementContext;
@@ -23,14 +23,13 @@ public class BlockItemMixin {
         // Vérifier que le placement a réussi
         if (cir.getReturnValue().isAccepted() && context.getPlayer() instanceof ServerPlayerEntity) {
             ServerPlayerEntity serverPlayer = (ServerPlayerEntity) context.getPlayer();
-            BlockPos pos = context.getBlockPos();
+            BlockPos pos = context.getBlockPos().toImmutable();
             BlockState state = context.getWorld().getBlockState(pos);
             
             // Vérifier que le bloc n'est pas de l'air
             if (!state.isAir()) {
-                PlayerTracker tracker = PlayerActionLogger.getOrCreateTracker(serverPlayer);
-                tracker.onBlockPlace(pos, state);
-                PlayerActionLogger.getActionAnalyzer().analyzeBlockPlace(serverPlayer, pos, tracker);
+                PlayerActionLogger.getEventBus().publish(new GameEvent.BlockPlaced(serverPlayer, pos, state,
+                    System.currentTimeMillis()));
             }
         }
     }
@@ -1,7 +1,7 @@
 package com.yourmod.playeractionlogger.mixin;
 
 import com.yourmod.playeractionlogger.PlayerActionLogger;
-import com.yourmod.playeractionlogger.PlayerTracker;
+import com.yourmod.playeractionlogger.event.GameEvent;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.damage.DamageSource;
 import net.minecraft.server.network.ServerPlayerEntity;
@@ -19,14 +19,13 @@ public abstract class LivingEntityMixin {
         
         // Log damage received by players
         if (entity instanceof ServerPlayerEntity serverPlayer) {
-            PlayerTracker tracker = PlayerActionLogger.getOrCreateTracker(serverPlayer);
-            tracker.onDamageReceived(source, amount);
+            PlayerActionLogger.getEventBus().publish(new GameEvent.DamageTaken(serverPlayer, source, amount,
+                serverPlayer.getHealth(), System.currentTimeMillis()));
         }
         
         // Log damage dealt by players
         if (source.getAttacker() instanceof ServerPlayerEntity attacker) {
-            PlayerTracker tracker = PlayerActionLogger.getOrCreateTracker(attacker);
-            tracker.onDamageDealt(entity, amount);
+            PlayerActionLogger.getEventBus().publish(new GameEvent.DamageDealt(attacker, entity, amount));
         }
     }
 }
\ No newline at end of file
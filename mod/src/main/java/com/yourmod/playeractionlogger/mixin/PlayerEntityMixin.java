@@ -1,7 +1,7 @@
 package com.yourmod.playeractionlogger.mixin;
 
 import com.yourmod.playeractionlogger.PlayerActionLogger;
-import com.yourmod.playeractionlogger.PlayerTracker;
+import com.yourmod.playeractionlogger.event.GameEvent;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.ItemStack;
 import net.minecraft.recipe.RecipeEntry;
@@ -19,10 +19,10 @@ public abstract class PlayerEntityMixin {
     @Inject(method = "onRecipeCrafted", at = @At("HEAD"))
     private void onRecipeCrafted(RecipeEntry<?> recipe, List<ItemStack> ingredients, CallbackInfo ci) {
         if ((Object)this instanceof ServerPlayerEntity serverPlayer) {
-            PlayerTracker tracker = PlayerActionLogger.getOrCreateTracker(serverPlayer);
             // Get the result from the recipe
             ItemStack result = recipe.value().getResult(serverPlayer.getWorld().getRegistryManager());
-            tracker.onItemCrafted(recipe.value(), result);
+            PlayerActionLogger.getEventBus().publish(new GameEvent.ItemCrafted(serverPlayer, recipe.value(), result.copy(),
+                System.currentTimeMillis()));
         }
     }
 }
\ No newline at end of file
@@ -1,47 +1,56 @@
 package com.yourmod.playeractionlogger.mixin;
 
+import com.yourmod.playeractionlogger.DirtySlots;
 import com.yourmod.playeractionlogger.PlayerActionLogger;
-import com.yourmod.playeractionlogger.PlayerTracker;
+import com.yourmod.playeractionlogger.event.GameEvent;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.ItemStack;
 import net.minecraft.screen.ScreenHandler;
 import net.minecraft.screen.slot.Slot;
 import net.minecraft.screen.slot.SlotActionType;
 import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.collection.DefaultedList;
+import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 
 @Mixin(ScreenHandler.class)
 public abstract class ScreenHandlerMixin {
     
     @Shadow public abstract Slot getSlot(int index);
     @Shadow public abstract ItemStack getCursorStack();
+    // Copies of the stacks as last sent to the client, refreshed after every click
+    @Shadow @Final private DefaultedList<ItemStack> trackedStacks;
     
     private boolean inventoryOpened = false;
-    private Map<Integer, ItemStack> slotStatesBefore = new HashMap<>();
+    private DirtySlots dirtySlots;
     
     @Inject(method = "onSlotClick", at = @At("HEAD"))
     private void beforeSlotClick(int slotIndex, int button, SlotActionType actionType, PlayerEntity player, CallbackInfo ci) {
         if (player instanceof ServerPlayerEntity serverPlayer) {
             if (!inventoryOpened) {
-                PlayerTracker tracker = PlayerActionLogger.getOrCreateTracker(serverPlayer);
-                tracker.onInventoryOpen((ScreenHandler)(Object)this);
+                // Le contenu du conteneur une fois par session, les clics suivants ne donnent que des deltas
+                ScreenHandler handler = (ScreenHandler)(Object)this;
+                List<ItemStack> contents = new ArrayList<>(handler.slots.size());
+                for (Slot slot : handler.slots) {
+                    contents.add(slot.inventory == player.getInventory() ? ItemStack.EMPTY : slot.getStack().copy());
+                }
+                PlayerActionLogger.getEventBus().publish(
+                    new GameEvent.ContainerOpened(serverPlayer, handler, contents));
                 inventoryOpened = true;
             }
             
-            // Capturer l'état de tous les slots avant l'action
-            slotStatesBefore.clear();
-            ScreenHandler handler = (ScreenHandler)(Object)this;
-            for (int i = 0; i < handler.slots.size(); i++) {
-                Slot slot = handler.getSlot(i);
-                // Créer une copie du stack pour éviter les modifications
-                slotStatesBefore.put(i, slot.getStack().copy());
+            // Seuls les slots touchés pendant le clic seront comparés, voir SlotMixin
+            dirtySlots = DirtySlots.begin((ScreenHandler)(Object)this);
+            // Un échange avec la barre d'action passe par l'inventaire du joueur, sans lire le slot
+            if (actionType == SlotActionType.SWAP) {
+                dirtySlots.inventorySlot(player.getInventory(), button, false);
             }
         }
     }
@@ -49,33 +58,38 @@ public abstract class ScreenHandlerMixin {
     @Inject(method = "onSlotClick", at = @At("TAIL"))
     private void onSlotClick(int slotIndex, int button, SlotActionType actionType, PlayerEntity player, CallbackInfo ci) {
         if (player instanceof ServerPlayerEntity serverPlayer) {
-            PlayerTracker tracker = PlayerActionLogger.getOrCreateTracker(serverPlayer);
-            ScreenHandler handler = (ScreenHandler)(Object)this;
+            DirtySlots dirty = dirtySlots;
+            dirtySlots = null;
+            DirtySlots.end();
+            if (dirty == null) return;
             
-            // Comparer l'état avant et après pour tous les slots qui ont changé
-            for (int i = 0; i < handler.slots.size(); i++) {
+            // Un échange avec la barre d'action modifie l'inventaire du joueur directement
+            if (actionType == SlotActionType.SWAP) {
+                dirty.inventorySlot(player.getInventory(), button, true);
+            }
+            
+            ScreenHandler handler = (ScreenHandler)(Object)this;
+            dirty.forEach((i, before) -> {
                 Slot slot = handler.getSlot(i);
-                ItemStack oldStack = slotStatesBefore.getOrDefault(i, ItemStack.EMPTY);
+                // Sans copie d'avant le clic, au mieux l'état de la dernière synchronisation
+                ItemStack oldStack = before != null ? before : trackedStacks.get(i).copy();
                 ItemStack newStack = slot.getStack();
                 
                 // Vérifier s'il y a eu un changement réel
                 if (!ItemStack.areEqual(oldStack, newStack)) {
                     boolean isPlayerSlot = slot.inventory == player.getInventory();
-                    tracker.onSlotChange(i, newStack.copy(), oldStack, isPlayerSlot);
+                    PlayerActionLogger.getEventBus().publish(
+                        new GameEvent.SlotChanged(serverPlayer, i, newStack.copy(), oldStack, isPlayerSlot));
                 }
-            }
-            
-            slotStatesBefore.clear();
+            });
         }
     }
     
     @Inject(method = "onClosed", at = @At("HEAD"))
     private void onClosed(PlayerEntity player, CallbackInfo ci) {
         if (player instanceof ServerPlayerEntity serverPlayer) {
-            PlayerTracker tracker = PlayerActionLogger.getOrCreateTracker(serverPlayer);
-            tracker.onInventoryClose();
+            PlayerActionLogger.getEventBus().publish(new GameEvent.ContainerClosed(serverPlayer));
             inventoryOpened = false;
-            slotStatesBefore.clear();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.yourmod.playeractionlogger.mixin;
+
+import com.yourmod.playeractionlogger.PlayerActionLogger;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ServerWorld.class)
+public class ServerWorldMixin {
+    
+    // Every block change of the world, not only the player's: vision caches need them all
+    @Inject(method = "onBlockChanged", at = @At("HEAD"))
+    private void onBlockChanged(BlockPos pos, BlockState oldBlock, BlockState newBlock, CallbackInfo ci) {
+        PlayerActionLogger.getBlockChangeLog().record(pos);
+    }
+}
@@ -0,0 +1,41 @@
+package com.yourmod.playeractionlogger.mixin;
+
+import com.yourmod.playeractionlogger.DirtySlots;
+import net.minecraft.item.ItemStack;
+import net.minecraft.screen.slot.Slot;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(Slot.class)
+public class SlotMixin {
+    
+    // Lu avant toute modification sur place : on garde une copie de l'ancien stack
+    @Inject(method = "getStack", at = @At("HEAD"))
+    private void beforeGetStack(CallbackInfoReturnable<ItemStack> cir) {
+        DirtySlots.onSlotRead((Slot)(Object)this);
+    }
+    
+    @Inject(method = "setStack", at = @At("HEAD"))
+    private void beforeSetStack(ItemStack stack, CallbackInfo ci) {
+        DirtySlots.onSlotMutating((Slot)(Object)this);
+    }
+    
+    @Inject(method = "setStackNoCallbacks", at = @At("HEAD"))
+    private void beforeSetStackNoCallbacks(ItemStack stack, CallbackInfo ci) {
+        DirtySlots.onSlotMutating((Slot)(Object)this);
+    }
+    
+    @Inject(method = "takeStack", at = @At("HEAD"))
+    private void beforeTakeStack(int amount, CallbackInfoReturnable<ItemStack> cir) {
+        DirtySlots.onSlotMutating((Slot)(Object)this);
+    }
+    
+    // Appelé après une modification sur place (increment/decrement)
+    @Inject(method = "markDirty", at = @At("HEAD"))
+    private void onMarkDirty(CallbackInfo ci) {
+        DirtySlots.onSlotChanged((Slot)(Object)this);
+    }
+}
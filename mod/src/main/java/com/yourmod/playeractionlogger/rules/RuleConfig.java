@@ -0,0 +1,208 @@
+package com.yourmod.playeractionlogger.rules;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.yourmod.playeractionlogger.Classifier;
+import com.yourmod.playeractionlogger.PlayerActionLogger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The rules file, {@code rules.json} in the config directory, as written by
+ * hand. {@link RuleEngine} compiles it; a missing file is created with the
+ * detections PAL always had, so they can be tuned or turned off there.
+ */
+public class RuleConfig {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    
+    public List<Rule> rules = new ArrayList<>();
+    public List<Sequence> sequences = new ArrayList<>();
+    
+    public static class Rule {
+        public String name;
+        public boolean enabled = true;
+        public RuleEventType on;
+        // All of them must hold, the event is ignored by the rule otherwise
+        public List<Condition> when = new ArrayList<>();
+        // At most one pattern, over the events that met the conditions
+        public LinePattern line;
+        public RatePattern rate;
+        // Log only when the rule starts matching, not on every matching event
+        public boolean edge = false;
+        // Placeholders: {player} {x} {y} {z} {block} {item} {entity}; no message only counts
+        public String message;
+        public boolean important = false;
+    }
+    
+    public static class Condition {
+        // x, y, z, health, amount, or block, item, entity, source
+        public String field;
+        // Bounds, for x, y, z, health and amount
+        public Double lt, le, gt, ge;
+        // Registry ids ("minecraft:stone") or paths ("stone"), for block, item and entity; damage types for source
+        public List<String> is;
+        // Substrings of the registry path, or of the damage type
+        public List<String> contains;
+        // A Classifier category, for block and item
+        public Classifier.Category category;
+    }
+    
+    // Steps matched in order by the same player, other events in between are skipped; always logged as important
+    public static class Sequence {
+        public String name;
+        public boolean enabled = true;
+        public List<Step> steps = new ArrayList<>();
+        // From the first step to the last, 0 for no limit
+        public long withinMillis = 0;
+        // Same placeholders as rules, filled from the event of the last step
+        public String message;
+    }
+    
+    public static class Step {
+        // Null for any event
+        public RuleEventType on;
+        public List<Condition> when = new ArrayList<>();
+        // Since the previous step, 0 for no limit
+        public long withinMillis = 0;
+    }
+    
+    // The last window positions, at least minSize of them, lying along a horizontal line
+    public static class LinePattern {
+        public int window = 20;
+        public int minSize = 10;
+        public int maxDy = 2;
+        // Distance between the first and last position along x or z
+        public int minSpan = 6;
+    }
+    
+    // At least count events within the last withinMillis
+    public static class RatePattern {
+        public int count = 5;
+        public long withinMillis = 5000;
+    }
+    
+    public static RuleConfig load(Path file) {
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                RuleConfig config = GSON.fromJson(reader, RuleConfig.class);
+                if (config != null && config.rules != null) return config;
+            } catch (IOException | JsonParseException e) {
+                PlayerActionLogger.LOGGER.error("Failed to load rules, using defaults", e);
+                return defaults();
+            }
+        }
+        
+        RuleConfig config = defaults();
+        try {
+            Files.createDirectories(file.getParent());
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                GSON.toJson(config, writer);
+            }
+        } catch (IOException e) {
+            PlayerActionLogger.LOGGER.error("Failed to save rules", e);
+        }
+        return config;
+    }
+    
+    static RuleConfig defaults() {
+        RuleConfig config = new RuleConfig();
+        
+        Rule deepMining = rule("deep_mining", RuleEventType.BLOCK_BREAK);
+        deepMining.when.add(bound("y", 40.0, null));
+        config.rules.add(deepMining);
+        
+        Rule stripMining = rule("strip_mining", RuleEventType.BLOCK_BREAK);
+        stripMining.when.add(bound("y", 40.0, null));
+        stripMining.line = new LinePattern();
+        stripMining.message = "Strip mining detected at Y={y}";
+        config.rules.add(stripMining);
+        
+        Rule valuableOre = rule("valuable_ore", RuleEventType.BLOCK_BREAK);
+        Condition ore = new Condition();
+        ore.field = "block";
+        ore.category = Classifier.Category.VALUABLE_ORE;
+        valuableOre.when.add(ore);
+        valuableOre.message = "Found valuable ore: {block} at {x},{y},{z}";
+        valuableOre.important = true;
+        config.rules.add(valuableOre);
+        
+        Rule building = rule("building", RuleEventType.BLOCK_PLACE);
+        building.rate = new RatePattern();
+        building.edge = true;
+        building.message = "Started building activity";
+        config.rules.add(building);
+        
+        Sequence lava = sequence("lava_close_call", 0,
+            "Close call: drank {item} at {health} HP after burning in lava");
+        Step burnt = step(RuleEventType.DAMAGE_TAKEN, 0);
+        Condition inLava = new Condition();
+        inLava.field = "source";
+        inLava.is = List.of("lava");
+        burnt.when.add(inLava);
+        burnt.when.add(bound("health", 4.0, null));
+        lava.steps.add(burnt);
+        Step potion = step(RuleEventType.ITEM_USED, 3000);
+        Condition drink = new Condition();
+        drink.field = "item";
+        drink.contains = List.of("potion");
+        potion.when.add(drink);
+        lava.steps.add(potion);
+        config.sequences.add(lava);
+        
+        Sequence pickaxe = sequence("diamond_pickaxe", 0,
+            "Crafted {item} within 2 minutes of mining diamonds");
+        Step mined = step(RuleEventType.BLOCK_BREAK, 0);
+        Condition diamondOre = new Condition();
+        diamondOre.field = "block";
+        diamondOre.contains = List.of("diamond_ore");
+        mined.when.add(diamondOre);
+        pickaxe.steps.add(mined);
+        Step crafted = step(RuleEventType.ITEM_CRAFTED, 120000);
+        Condition diamondPickaxe = new Condition();
+        diamondPickaxe.field = "item";
+        diamondPickaxe.is = List.of("minecraft:diamond_pickaxe");
+        crafted.when.add(diamondPickaxe);
+        pickaxe.steps.add(crafted);
+        config.sequences.add(pickaxe);
+        
+        return config;
+    }
+    
+    private static Rule rule(String name, RuleEventType on) {
+        Rule rule = new Rule();
+        rule.name = name;
+        rule.on = on;
+        return rule;
+    }
+    
+    private static Sequence sequence(String name, long withinMillis, String message) {
+        Sequence sequence = new Sequence();
+        sequence.name = name;
+        sequence.withinMillis = withinMillis;
+        sequence.message = message;
+        return sequence;
+    }
+    
+    private static Step step(RuleEventType on, long withinMillis) {
+        Step step = new Step();
+        step.on = on;
+        step.withinMillis = withinMillis;
+        return step;
+    }
+    
+    private static Condition bound(String field, Double lt, Double gt) {
+        Condition condition = new Condition();
+        condition.field = field;
+        condition.lt = lt;
+        condition.gt = gt;
+        return condition;
+    }
+}
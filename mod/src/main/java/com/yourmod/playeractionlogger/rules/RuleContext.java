@@ -0,0 +1,43 @@
+package com.yourmod.playeractionlogger.rules;
+
+import net.minecraft.server.network.ServerPlayerEntity;
+
+/**
+ * The event a rule is evaluated against. One instance is filled and reused
+ * by the caller for every event, symbols are -1 when the event has none.
+ */
+public class RuleContext {
+    public RuleEventType type;
+    public ServerPlayerEntity player;
+    public long time;
+    public int x, y, z;
+    public int block = -1;
+    public int item = -1;
+    public int entity = -1;
+    // Damage taken and its type ("lava", "fall", ...), for DAMAGE_TAKEN
+    public float amount = 0;
+    public String source;
+    // The player's health: for DAMAGE_TAKEN as the hit landed, before it applies;
+    // for the other events, read when the event is handled
+    public float health = 0;
+    
+    // time is when the event happened, as captured in its GameEvent
+    public RuleContext set(RuleEventType type, ServerPlayerEntity player, long time) {
+        this.type = type;
+        this.player = player;
+        this.time = time;
+        this.x = this.y = this.z = 0;
+        this.block = this.item = this.entity = -1;
+        this.amount = 0;
+        this.source = null;
+        this.health = player != null ? player.getHealth() : 0;
+        return this;
+    }
+    
+    public RuleContext at(int x, int y, int z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+}
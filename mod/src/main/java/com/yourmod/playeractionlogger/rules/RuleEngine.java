@@ -0,0 +1,546 @@
+package com.yourmod.playeractionlogger.rules;
+
+import com.yourmod.playeractionlogger.Classifier;
+import com.yourmod.playeractionlogger.PlayerActionLogger;
+import com.yourmod.playeractionlogger.SymbolTable;
+import com.yourmod.playeractionlogger.util.LongRingBuffer;
+import net.minecraft.util.math.BlockPos;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Detections from {@link RuleConfig}, compiled once at load: each condition
+ * becomes a predicate (name tests are answered once per symbol, then read
+ * from bits), each message a list of pieces, and the rules are grouped by
+ * event type so an event only runs the rules that listen to it.
+ *
+ * <p>Sequences are small NFAs over each player's events, skipping whatever
+ * comes in between. A partial match is only its start and last step times,
+ * and a player keeps at most one per sequence and step: a newer one has at
+ * least as much of every window left, so it replaces the older. State is
+ * fixed by the number of steps however fast events come, and a partial
+ * match past its window is dropped the next time it is looked at.
+ *
+ * <p>Rules with a pattern keep their history per player, in a
+ * {@link PlayerState}. Every rule and sequence counts its evaluations,
+ * matches and time spent, see {@link #formatStats()}. Used from the client
+ * thread.
+ */
+public class RuleEngine {
+    private final SymbolTable symbols;
+    private final Classifier classifier;
+    private final List<CompiledRule> rules = new ArrayList<>();
+    private final EnumMap<RuleEventType, CompiledRule[]> byType = new EnumMap<>(RuleEventType.class);
+    private final List<CompiledSequence> sequences = new ArrayList<>();
+    // Sequences with a step that takes the type
+    private final EnumMap<RuleEventType, CompiledSequence[]> sequencesByType = new EnumMap<>(RuleEventType.class);
+    
+    public RuleEngine(RuleConfig config, SymbolTable symbols, Classifier classifier) {
+        this.symbols = symbols;
+        this.classifier = classifier;
+        for (RuleConfig.Rule rule : config.rules) {
+            if (!rule.enabled) continue;
+            try {
+                rules.add(compile(rule, rules.size()));
+            } catch (IllegalArgumentException e) {
+                PlayerActionLogger.LOGGER.warn("Skipping rule {}: {}", rule.name, e.getMessage());
+            }
+        }
+        if (config.sequences != null) {
+            for (RuleConfig.Sequence sequence : config.sequences) {
+                if (!sequence.enabled) continue;
+                try {
+                    sequences.add(compile(sequence, sequences.size()));
+                } catch (IllegalArgumentException e) {
+                    PlayerActionLogger.LOGGER.warn("Skipping sequence {}: {}", sequence.name, e.getMessage());
+                }
+            }
+        }
+        for (RuleEventType type : RuleEventType.values()) {
+            byType.put(type, rules.stream().filter(r -> r.type == type).toArray(CompiledRule[]::new));
+            sequencesByType.put(type, sequences.stream().filter(q -> q.listensTo(type)).toArray(CompiledSequence[]::new));
+        }
+    }
+    
+    public static RuleEngine load(Path file, SymbolTable symbols, Classifier classifier) {
+        RuleEngine engine = new RuleEngine(RuleConfig.load(file), symbols, classifier);
+        PlayerActionLogger.LOGGER.info("Loaded {} detection rules and {} sequences",
+            engine.rules.size(), engine.sequences.size());
+        return engine;
+    }
+    
+    public PlayerState newPlayerState() {
+        return new PlayerState(rules.size(), sequences);
+    }
+    
+    public void evaluate(RuleContext context, PlayerState state, MatchListener listener) {
+        for (CompiledRule rule : byType.get(context.type)) {
+            long start = System.nanoTime();
+            boolean matched = rule.test(context, state);
+            boolean fire = matched && (!rule.edge || !state.matching[rule.index]);
+            state.matching[rule.index] = matched;
+            
+            long elapsed = System.nanoTime() - start;
+            rule.evaluations++;
+            rule.totalNanos += elapsed;
+            if (elapsed > rule.maxNanos) rule.maxNanos = elapsed;
+            if (matched) rule.matches++;
+            
+            if (fire && rule.message != null) {
+                rule.fired++;
+                listener.onMatch(rule.name, render(rule.message, context), rule.important);
+            }
+        }
+        
+        for (CompiledSequence sequence : sequencesByType.get(context.type)) {
+            long start = System.nanoTime();
+            boolean completed = sequence.advance(context, state);
+            
+            long elapsed = System.nanoTime() - start;
+            sequence.evaluations++;
+            sequence.totalNanos += elapsed;
+            if (elapsed > sequence.maxNanos) sequence.maxNanos = elapsed;
+            
+            if (completed && sequence.message != null) {
+                listener.onMatch(sequence.name, render(sequence.message, context), true);
+            }
+        }
+    }
+    
+    public List<CompiledRule> getRules() {
+        return Collections.unmodifiableList(rules);
+    }
+    
+    public List<CompiledSequence> getSequences() {
+        return Collections.unmodifiableList(sequences);
+    }
+    
+    public int size() {
+        return rules.size();
+    }
+    
+    public String formatStats() {
+        StringBuilder sb = new StringBuilder();
+        for (CompiledRule rule : rules) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(rule.name).append(' ')
+                .append(rule.matches).append('/').append(rule.evaluations)
+                .append(" avg ").append(rule.getAverageNanos() / 1000.0).append("us")
+                .append(" max ").append(rule.maxNanos / 1000.0).append("us");
+        }
+        for (CompiledSequence sequence : sequences) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(sequence.name).append(' ')
+                .append(sequence.completed).append('/').append(sequence.started)
+                .append(" (").append(sequence.expired).append(" expired)")
+                .append(" avg ").append(sequence.getAverageNanos() / 1000.0).append("us")
+                .append(" max ").append(sequence.maxNanos / 1000.0).append("us");
+        }
+        return sb.toString();
+    }
+    
+    private CompiledRule compile(RuleConfig.Rule rule, int index) {
+        if (rule.name == null || rule.name.isEmpty()) throw new IllegalArgumentException("no name");
+        if (rule.on == null) throw new IllegalArgumentException("no event type (\"on\")");
+        if (rule.line != null && rule.rate != null) throw new IllegalArgumentException("more than one pattern");
+        
+        List<Condition> conditions = new ArrayList<>();
+        if (rule.when != null) {
+            for (RuleConfig.Condition condition : rule.when) {
+                conditions.add(compile(condition));
+            }
+        }
+        
+        Pattern pattern = null;
+        if (rule.line != null) {
+            RuleConfig.LinePattern line = rule.line;
+            if (line.window <= 0 || line.minSize > line.window) throw new IllegalArgumentException("bad line window");
+            pattern = new Pattern(line.window) {
+                @Override
+                boolean matches(LongRingBuffer history, long time) {
+                    if (history.size() < Math.max(line.minSize, 2)) return false;
+                    long first = history.first(), last = history.last();
+                    int dx = Math.abs(BlockPos.unpackLongX(last) - BlockPos.unpackLongX(first));
+                    int dy = Math.abs(BlockPos.unpackLongY(last) - BlockPos.unpackLongY(first));
+                    int dz = Math.abs(BlockPos.unpackLongZ(last) - BlockPos.unpackLongZ(first));
+                    return dy <= line.maxDy && (dx >= line.minSpan || dz >= line.minSpan);
+                }
+            };
+        } else if (rule.rate != null) {
+            RuleConfig.RatePattern rate = rule.rate;
+            if (rate.count <= 0) throw new IllegalArgumentException("bad rate count");
+            pattern = new Pattern(rate.count) {
+                @Override
+                boolean matches(LongRingBuffer history, long time) {
+                    // Full ring: the oldest entry is the count-th most recent event
+                    return history.size() == rate.count && time - history.getTime(0) <= rate.withinMillis;
+                }
+            };
+        }
+        
+        return new CompiledRule(index, rule.name, rule.on, conditions.toArray(Condition[]::new), pattern,
+            rule.edge, rule.message == null ? null : compileMessage(rule.message), rule.important);
+    }
+    
+    private CompiledSequence compile(RuleConfig.Sequence sequence, int index) {
+        if (sequence.name == null || sequence.name.isEmpty()) throw new IllegalArgumentException("no name");
+        if (sequence.steps == null || sequence.steps.size() < 2) throw new IllegalArgumentException("less than 2 steps");
+        
+        Step[] steps = new Step[sequence.steps.size()];
+        for (int i = 0; i < steps.length; i++) {
+            RuleConfig.Step step = sequence.steps.get(i);
+            List<Condition> conditions = new ArrayList<>();
+            if (step.when != null) {
+                for (RuleConfig.Condition condition : step.when) {
+                    conditions.add(compile(condition));
+                }
+            }
+            steps[i] = new Step(step.on, conditions.toArray(Condition[]::new), step.withinMillis);
+        }
+        return new CompiledSequence(index, sequence.name, steps, sequence.withinMillis,
+            sequence.message == null ? null : compileMessage(sequence.message));
+    }
+    
+    private Condition compile(RuleConfig.Condition condition) {
+        if (condition.field == null) throw new IllegalArgumentException("condition without a field");
+        switch (condition.field) {
+            case "x": return bounds(condition, c -> c.x);
+            case "y": return bounds(condition, c -> c.y);
+            case "z": return bounds(condition, c -> c.z);
+            case "health": return bounds(condition, c -> c.health);
+            case "amount": return bounds(condition, c -> c.amount);
+            case "block": return names(condition, SymbolTable.Kind.BLOCK, c -> c.block);
+            case "item": return names(condition, SymbolTable.Kind.ITEM, c -> c.item);
+            case "entity": return names(condition, SymbolTable.Kind.ENTITY, c -> c.entity);
+            case "source": return strings(condition, c -> c.source);
+            default: throw new IllegalArgumentException("unknown field " + condition.field);
+        }
+    }
+    
+    private Condition bounds(RuleConfig.Condition condition, Value value) {
+        double lt = condition.lt != null ? condition.lt : Double.POSITIVE_INFINITY;
+        double le = condition.le != null ? condition.le : Double.POSITIVE_INFINITY;
+        double gt = condition.gt != null ? condition.gt : Double.NEGATIVE_INFINITY;
+        double ge = condition.ge != null ? condition.ge : Double.NEGATIVE_INFINITY;
+        return c -> {
+            double v = value.of(c);
+            return v < lt && v <= le && v > gt && v >= ge;
+        };
+    }
+    
+    private Condition names(RuleConfig.Condition condition, SymbolTable.Kind kind, Symbol symbolOf) {
+        if (condition.category != null) {
+            Classifier.Category category = condition.category;
+            if (category.kind != kind) {
+                throw new IllegalArgumentException(condition.field + " condition with category " + category
+                    + ", which is for " + category.kind.name().toLowerCase(Locale.ROOT) + "s");
+            }
+            // Already a bit per registry entry, nothing to remember
+            return c -> {
+                int symbol = symbolOf.of(c);
+                return symbol >= 0 && classifier.is(symbol, category);
+            };
+        }
+        
+        Set<String> is = condition.is == null ? Set.of() : new HashSet<>(condition.is);
+        List<String> contains = condition.contains == null ? List.of() : List.copyOf(condition.contains);
+        if (is.isEmpty() && contains.isEmpty()) {
+            throw new IllegalArgumentException(condition.field + " condition without \"is\", \"contains\" or \"category\"");
+        }
+        
+        // Symbols already tested, and which of them passed
+        BitSet known = new BitSet();
+        BitSet passed = new BitSet();
+        return c -> {
+            int symbol = symbolOf.of(c);
+            if (symbol < 0) return false;
+            if (!known.get(symbol)) {
+                String path = symbols.getPath(symbol);
+                boolean result = is.contains(symbols.getId(symbol)) || is.contains(path);
+                for (int i = 0; !result && i < contains.size(); i++) {
+                    result = path.contains(contains.get(i));
+                }
+                known.set(symbol);
+                passed.set(symbol, result);
+            }
+            return passed.get(symbol);
+        };
+    }
+    
+    // Plain strings, no symbol to remember the answer by
+    private Condition strings(RuleConfig.Condition condition, Function<RuleContext, String> field) {
+        List<String> is = condition.is == null ? List.of() : List.copyOf(condition.is);
+        List<String> contains = condition.contains == null ? List.of() : List.copyOf(condition.contains);
+        if (is.isEmpty() && contains.isEmpty()) {
+            throw new IllegalArgumentException(condition.field + " condition without \"is\" or \"contains\"");
+        }
+        return c -> {
+            String value = field.apply(c);
+            if (value == null) return false;
+            if (is.contains(value)) return true;
+            for (String part : contains) {
+                if (value.contains(part)) return true;
+            }
+            return false;
+        };
+    }
+    
+    private List<Function<RuleContext, String>> compileMessage(String message) {
+        List<Function<RuleContext, String>> pieces = new ArrayList<>();
+        int i = 0;
+        while (i < message.length()) {
+            int open = message.indexOf('{', i);
+            if (open < 0) {
+                String text = message.substring(i);
+                pieces.add(c -> text);
+                break;
+            }
+            int close = message.indexOf('}', open);
+            if (close < 0) throw new IllegalArgumentException("unclosed { in message");
+            if (open > i) {
+                String text = message.substring(i, open);
+                pieces.add(c -> text);
+            }
+            pieces.add(placeholder(message.substring(open + 1, close)));
+            i = close + 1;
+        }
+        return pieces;
+    }
+    
+    private Function<RuleContext, String> placeholder(String name) {
+        switch (name) {
+            case "player": return c -> c.player.getName().getString();
+            case "x": return c -> Integer.toString(c.x);
+            case "y": return c -> Integer.toString(c.y);
+            case "z": return c -> Integer.toString(c.z);
+            case "block": return c -> c.block < 0 ? "" : symbols.getName(c.block);
+            case "item": return c -> c.item < 0 ? "" : symbols.getName(c.item);
+            case "entity": return c -> c.entity < 0 ? "" : symbols.getName(c.entity);
+            case "health": return c -> Float.toString(Math.round(c.health * 10) / 10f);
+            case "amount": return c -> Float.toString(Math.round(c.amount * 10) / 10f);
+            case "source": return c -> c.source == null ? "" : c.source;
+            default: throw new IllegalArgumentException("unknown placeholder {" + name + "}");
+        }
+    }
+    
+    @FunctionalInterface
+    private interface Condition {
+        boolean test(RuleContext context);
+    }
+    
+    private static String render(List<Function<RuleContext, String>> message, RuleContext context) {
+        StringBuilder sb = new StringBuilder();
+        for (Function<RuleContext, String> piece : message) {
+            sb.append(piece.apply(context));
+        }
+        return sb.toString();
+    }
+    
+    @FunctionalInterface
+    private interface Value {
+        double of(RuleContext context);
+    }
+    
+    @FunctionalInterface
+    private interface Symbol {
+        int of(RuleContext context);
+    }
+    
+    // Fed with the positions of the events that met the conditions
+    private abstract static class Pattern {
+        final int capacity;
+        
+        Pattern(int capacity) {
+            this.capacity = capacity;
+        }
+        
+        abstract boolean matches(LongRingBuffer history, long time);
+    }
+    
+    @FunctionalInterface
+    public interface MatchListener {
+        void onMatch(String rule, String message, boolean important);
+    }
+    
+    /**
+     * A player's pattern histories and which rules matched last time, by
+     * rule index, and the partial matches of each sequence: for k steps
+     * done, the time of the first and of the k-th, -1 when there is none.
+     */
+    public static class PlayerState {
+        private final LongRingBuffer[] histories;
+        private final boolean[] matching;
+        private final long[][] runStarts;
+        private final long[][] runLasts;
+        
+        PlayerState(int rules, List<CompiledSequence> sequences) {
+            this.histories = new LongRingBuffer[rules];
+            this.matching = new boolean[rules];
+            this.runStarts = new long[sequences.size()][];
+            this.runLasts = new long[sequences.size()][];
+            for (CompiledSequence sequence : sequences) {
+                // Index k - 1 for k steps done, a run with all of them done is a match
+                runStarts[sequence.index] = new long[sequence.steps.length - 1];
+                runLasts[sequence.index] = new long[sequence.steps.length - 1];
+                Arrays.fill(runLasts[sequence.index], -1);
+            }
+        }
+    }
+    
+    private static class Step {
+        final RuleEventType type;
+        final Condition[] conditions;
+        final long withinMillis;
+        
+        Step(RuleEventType type, Condition[] conditions, long withinMillis) {
+            this.type = type;
+            this.conditions = conditions;
+            this.withinMillis = withinMillis;
+        }
+        
+        boolean accepts(RuleContext context) {
+            if (type != null && type != context.type) return false;
+            for (Condition condition : conditions) {
+                if (!condition.test(context)) return false;
+            }
+            return true;
+        }
+    }
+    
+    public static class CompiledSequence {
+        public final String name;
+        private final int index;
+        private final Step[] steps;
+        private final long withinMillis;
+        private final List<Function<RuleContext, String>> message;
+        private long evaluations = 0;
+        private long started = 0;
+        private long completed = 0;
+        private long expired = 0;
+        private long totalNanos = 0;
+        private long maxNanos = 0;
+        
+        CompiledSequence(int index, String name, Step[] steps, long withinMillis,
+                         List<Function<RuleContext, String>> message) {
+            this.index = index;
+            this.name = name;
+            this.steps = steps;
+            this.withinMillis = withinMillis;
+            this.message = message;
+        }
+        
+        boolean listensTo(RuleEventType type) {
+            for (Step step : steps) {
+                if (step.type == null || step.type == type) return true;
+            }
+            return false;
+        }
+        
+        // True when the event completes a match
+        boolean advance(RuleContext context, PlayerState state) {
+            long[] starts = state.runStarts[index];
+            long[] lasts = state.runLasts[index];
+            long time = context.time;
+            boolean matched = false;
+            
+            // Furthest runs first, so one event never moves a run two steps
+            for (int done = steps.length - 1; done >= 1; done--) {
+                long last = lasts[done - 1];
+                if (last < 0) continue;
+                long start = starts[done - 1];
+                Step next = steps[done];
+                if ((next.withinMillis > 0 && time - last > next.withinMillis)
+                        || (withinMillis > 0 && time - start > withinMillis)) {
+                    lasts[done - 1] = -1;
+                    expired++;
+                    continue;
+                }
+                if (!next.accepts(context)) continue;
+                
+                lasts[done - 1] = -1;
+                if (done + 1 == steps.length) {
+                    completed++;
+                    matched = true;
+                } else {
+                    // Replaces an older run at the next step, this one has more time left
+                    starts[done] = start;
+                    lasts[done] = time;
+                }
+            }
+            
+            if (steps[0].accepts(context)) {
+                starts[0] = time;
+                lasts[0] = time;
+                started++;
+            }
+            return matched;
+        }
+        
+        public long getEvaluations() { return evaluations; }
+        public long getStarted() { return started; }
+        public long getCompleted() { return completed; }
+        // Partial matches dropped for running out of time
+        public long getExpired() { return expired; }
+        public long getTotalNanos() { return totalNanos; }
+        public long getMaxNanos() { return maxNanos; }
+        
+        public long getAverageNanos() {
+            return evaluations == 0 ? 0 : totalNanos / evaluations;
+        }
+    }
+    
+    public static class CompiledRule {
+        public final String name;
+        public final RuleEventType type;
+        private final int index;
+        private final Condition[] conditions;
+        private final Pattern pattern;
+        private final boolean edge;
+        private final List<Function<RuleContext, String>> message;
+        private final boolean important;
+        private long evaluations = 0;
+        private long matches = 0;
+        private long fired = 0;
+        private long totalNanos = 0;
+        private long maxNanos = 0;
+        
+        CompiledRule(int index, String name, RuleEventType type, Condition[] conditions, Pattern pattern,
+                     boolean edge, List<Function<RuleContext, String>> message, boolean important) {
+            this.index = index;
+            this.name = name;
+            this.type = type;
+            this.conditions = conditions;
+            this.pattern = pattern;
+            this.edge = edge;
+            this.message = message;
+            this.important = important;
+        }
+        
+        boolean test(RuleContext context, PlayerState state) {
+            for (Condition condition : conditions) {
+                if (!condition.test(context)) return false;
+            }
+            if (pattern == null) return true;
+            
+            LongRingBuffer history = state.histories[index];
+            if (history == null) {
+                history = state.histories[index] = new LongRingBuffer(pattern.capacity);
+            }
+            history.add(BlockPos.asLong(context.x, context.y, context.z), context.time);
+            return pattern.matches(history, context.time);
+        }
+        
+        public long getEvaluations() { return evaluations; }
+        public long getMatches() { return matches; }
+        // Matches that logged something, edge rules only log the first of a run
+        public long getFired() { return fired; }
+        public long getTotalNanos() { return totalNanos; }
+        public long getMaxNanos() { return maxNanos; }
+        
+        public long getAverageNanos() {
+            return evaluations == 0 ? 0 : totalNanos / evaluations;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.yourmod.playeractionlogger.rules;
+
+// What a rule listens to, each event only runs the rules of its type
+public enum RuleEventType {
+    BLOCK_BREAK,
+    BLOCK_PLACE,
+    ENTITY_INTERACT,
+    DAMAGE_TAKEN,
+    ITEM_USED,
+    ITEM_CRAFTED,
+    ENTITY_KILLED
+}
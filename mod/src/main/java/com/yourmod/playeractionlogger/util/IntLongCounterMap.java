@@ -0,0 +1,185 @@
+package com.yourmod.playeractionlogger.util;
+
+import java.util.Arrays;
+
+/**
+ * Counts by int key without boxing: open addressing with linear probing over
+ * parallel key/value arrays, grown at half full. Counts that drop back to
+ * zero stay in the map until it is cleared. {@link #snapshotAndReset()} hands
+ * the current counts over and starts empty, for windowed counters.
+ * Not thread-safe.
+ */
+public class IntLongCounterMap {
+    // Marks a free slot, the key with the same value is kept aside
+    private static final int FREE = Integer.MIN_VALUE;
+    private static final int MIN_CAPACITY = 16;
+    
+    private int[] keys;
+    private long[] values;
+    private int size = 0;
+    private boolean hasFreeKey = false;
+    private long freeKeyValue = 0;
+    
+    public IntLongCounterMap() {
+        this(MIN_CAPACITY);
+    }
+    
+    public IntLongCounterMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedSize * 2) - 1) << 1;
+        this.keys = newKeys(capacity);
+        this.values = new long[capacity];
+    }
+    
+    public void increment(int key) {
+        add(key, 1);
+    }
+    
+    // Returns the new count
+    public long add(int key, long delta) {
+        if (key == FREE) {
+            if (!hasFreeKey) {
+                hasFreeKey = true;
+                size++;
+            }
+            return freeKeyValue += delta;
+        }
+        
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                return values[slot] += delta;
+            }
+            slot = (slot + 1) & mask;
+        }
+        
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        return delta;
+    }
+    
+    // 0 for keys never counted
+    public long get(int key) {
+        if (key == FREE) return freeKeyValue;
+        
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+    
+    public boolean containsKey(int key) {
+        if (key == FREE) return hasFreeKey;
+        
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public long total() {
+        long total = freeKeyValue;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != FREE) total += values[slot];
+        }
+        return total;
+    }
+    
+    // Keeps the capacity
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        size = 0;
+        hasFreeKey = false;
+        freeKeyValue = 0;
+    }
+    
+    public void forEach(Visitor visitor) {
+        if (hasFreeKey) visitor.accept(FREE, freeKeyValue);
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != FREE) visitor.accept(keys[slot], values[slot]);
+        }
+    }
+    
+    public IntLongCounterMap copy() {
+        IntLongCounterMap copy = new IntLongCounterMap(MIN_CAPACITY);
+        copy.keys = keys.clone();
+        copy.values = values.clone();
+        copy.size = size;
+        copy.hasFreeKey = hasFreeKey;
+        copy.freeKeyValue = freeKeyValue;
+        return copy;
+    }
+    
+    /**
+     * The counts so far, this map starts over empty. The tables are handed
+     * over rather than copied, this map gets fresh ones of the same size.
+     */
+    public IntLongCounterMap snapshotAndReset() {
+        IntLongCounterMap snapshot = new IntLongCounterMap(MIN_CAPACITY);
+        snapshot.keys = keys;
+        snapshot.values = values;
+        snapshot.size = size;
+        snapshot.hasFreeKey = hasFreeKey;
+        snapshot.freeKeyValue = freeKeyValue;
+        
+        keys = newKeys(keys.length);
+        values = new long[values.length];
+        size = 0;
+        hasFreeKey = false;
+        freeKeyValue = 0;
+        return snapshot;
+    }
+    
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = newKeys(capacity);
+        values = new long[capacity];
+        
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key == FREE) continue;
+            int slot = mix(key) & mask;
+            while (keys[slot] != FREE) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = oldValues[i];
+        }
+    }
+    
+    private static int[] newKeys(int capacity) {
+        int[] keys = new int[capacity];
+        Arrays.fill(keys, FREE);
+        return keys;
+    }
+    
+    // Dense keys (symbols, ids) would otherwise fill runs of neighbouring slots
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+    
+    @FunctionalInterface
+    public interface Visitor {
+        void accept(int key, long value);
+    }
+}
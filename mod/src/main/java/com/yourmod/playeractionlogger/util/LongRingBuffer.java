@@ -0,0 +1,141 @@
+package com.yourmod.playeractionlogger.util;
+
+import java.util.ConcurrentModificationException;
+import java.util.function.LongConsumer;
+
+/**
+ * {@link RingBuffer} for primitive longs, typically packed positions from
+ * {@code BlockPos.asLong()}, so nothing gets boxed. Same semantics: fixed
+ * capacity, oldest value overwritten, views without copies that fail fast
+ * once the buffer wraps past them. Not thread-safe.
+ */
+public class LongRingBuffer {
+    private final long[] values;
+    private final long[] times;
+    private long added = 0;
+    private long cleared = 0;
+    
+    public LongRingBuffer(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.values = new long[capacity];
+        this.times = new long[capacity];
+    }
+    
+    public void add(long value) {
+        add(value, System.currentTimeMillis());
+    }
+    
+    // Times are expected to be non-decreasing, since() relies on it
+    public void add(long value, long time) {
+        int slot = (int) (added % values.length);
+        values[slot] = value;
+        times[slot] = time;
+        added++;
+    }
+    
+    public int size() {
+        return (int) Math.min(added - cleared, values.length);
+    }
+    
+    public int capacity() {
+        return values.length;
+    }
+    
+    public boolean isEmpty() {
+        return added == cleared;
+    }
+    
+    // 0 is the oldest value
+    public long get(int index) {
+        return values[slot(absolute(index))];
+    }
+    
+    public long getTime(int index) {
+        return times[slot(absolute(index))];
+    }
+    
+    public long first() {
+        return get(0);
+    }
+    
+    public long last() {
+        return get(size() - 1);
+    }
+    
+    public void clear() {
+        cleared = added;
+    }
+    
+    public View view() {
+        return new View(added - size(), added);
+    }
+    
+    // Values added at or after the given time, oldest first
+    public View since(long time) {
+        long lo = added - size(), hi = added;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (times[slot(mid)] < time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return new View(lo, added);
+    }
+    
+    public int countSince(long time) {
+        return since(time).size();
+    }
+    
+    private long absolute(int index) {
+        int size = size();
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index + " of " + size);
+        return added - size + index;
+    }
+    
+    private int slot(long absolute) {
+        return (int) (absolute % values.length);
+    }
+    
+    public class View {
+        private final long start;
+        private final long end;
+        
+        View(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+        
+        public int size() {
+            return (int) (end - start);
+        }
+        
+        public boolean isEmpty() {
+            return end == start;
+        }
+        
+        public long get(int index) {
+            if (index < 0 || index >= end - start) throw new IndexOutOfBoundsException(index + " of " + size());
+            long absolute = start + index;
+            if (absolute < added - values.length || absolute < cleared) {
+                throw new ConcurrentModificationException("Ring buffer changed since the view was made");
+            }
+            return values[slot(absolute)];
+        }
+        
+        public long first() {
+            return get(0);
+        }
+        
+        public long last() {
+            return get(size() - 1);
+        }
+        
+        public void forEach(LongConsumer action) {
+            for (int i = 0; i < size(); i++) {
+                action.accept(get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.yourmod.playeractionlogger.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+
+/**
+ * Fixed-capacity FIFO keeping the last {@code capacity} values, each with the
+ * time it was added. Adding never allocates or shifts, the oldest value is
+ * simply overwritten.
+ *
+ * <p>{@link #view()} and {@link #since(long)} return read-only lists over the
+ * buffer itself, no copy. A view keeps showing the values that were there
+ * when it was made, and throws {@link ConcurrentModificationException} if
+ * one of them has been overwritten since. Not thread-safe.
+ */
+public class RingBuffer<T> {
+    private final Object[] values;
+    private final long[] times;
+    // Total number of values ever added, the next one goes to slot added % capacity
+    private long added = 0;
+    // Values before this one were cleared
+    private long cleared = 0;
+    
+    public RingBuffer(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.values = new Object[capacity];
+        this.times = new long[capacity];
+    }
+    
+    public void add(T value) {
+        add(value, System.currentTimeMillis());
+    }
+    
+    // Times are expected to be non-decreasing, since() relies on it
+    public void add(T value, long time) {
+        int slot = (int) (added % values.length);
+        values[slot] = value;
+        times[slot] = time;
+        added++;
+    }
+    
+    public int size() {
+        return (int) Math.min(added - cleared, values.length);
+    }
+    
+    public int capacity() {
+        return values.length;
+    }
+    
+    public boolean isEmpty() {
+        return added == cleared;
+    }
+    
+    // 0 is the oldest value
+    public T get(int index) {
+        return valueAt(absolute(index));
+    }
+    
+    public long getTime(int index) {
+        return times[slot(absolute(index))];
+    }
+    
+    public T first() {
+        return isEmpty() ? null : get(0);
+    }
+    
+    public T last() {
+        return isEmpty() ? null : get(size() - 1);
+    }
+    
+    public void clear() {
+        Arrays.fill(values, null);
+        cleared = added;
+    }
+    
+    // Everything currently in the buffer, oldest first
+    public List<T> view() {
+        return new View(added - size(), added);
+    }
+    
+    // Values added at or after the given time, oldest first
+    public List<T> since(long time) {
+        long start = added - size();
+        long lo = start, hi = added;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (times[slot(mid)] < time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return new View(lo, added);
+    }
+    
+    public int countSince(long time) {
+        return since(time).size();
+    }
+    
+    private long absolute(int index) {
+        int size = size();
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index + " of " + size);
+        return added - size + index;
+    }
+    
+    private int slot(long absolute) {
+        return (int) (absolute % values.length);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private T valueAt(long absolute) {
+        return (T) values[slot(absolute)];
+    }
+    
+    private class View extends AbstractList<T> {
+        private final long start;
+        private final long end;
+        
+        View(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+        
+        @Override
+        public T get(int index) {
+            if (index < 0 || index >= end - start) throw new IndexOutOfBoundsException(index + " of " + size());
+            long absolute = start + index;
+            if (absolute < added - values.length || absolute < cleared) {
+                throw new ConcurrentModificationException("Ring buffer changed since the view was made");
+            }
+            return valueAt(absolute);
+        }
+        
+        @Override
+        public int size() {
+            return (int) (end - start);
+        }
+    }
+}
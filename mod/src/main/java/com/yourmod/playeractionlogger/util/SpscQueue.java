@@ -0,0 +1,64 @@
+package com.yourmod.playeractionlogger.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock-free queue for exactly one producer thread and one consumer
+ * thread. Offering and polling are a few plain array accesses plus one
+ * ordered write, and neither side ever blocks.
+ */
+public class SpscQueue<T> {
+    private final Object[] buffer;
+    private final int mask;
+    // Next slot to read, only written by the consumer
+    private final AtomicLong head = new AtomicLong();
+    // Next slot to write, only written by the producer
+    private final AtomicLong tail = new AtomicLong();
+    // Producer's last look at head, saves reading the consumer's cache line on every offer
+    private long headCache = 0;
+    
+    // Rounded up to a power of two
+    public SpscQueue(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.buffer = new Object[size];
+        this.mask = size - 1;
+    }
+    
+    // Producer only. False if the queue is full.
+    public boolean offer(T value) {
+        long t = tail.get();
+        if (t - headCache >= buffer.length) {
+            headCache = head.get();
+            if (t - headCache >= buffer.length) return false;
+        }
+        buffer[(int) t & mask] = value;
+        tail.lazySet(t + 1);
+        return true;
+    }
+    
+    // Consumer only. Null if the queue is empty.
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        long h = head.get();
+        if (h >= tail.get()) return null;
+        int slot = (int) h & mask;
+        T value = (T) buffer[slot];
+        buffer[slot] = null;
+        head.lazySet(h + 1);
+        return value;
+    }
+    
+    // A snapshot, the other side may be moving
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+    
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+    
+    public int capacity() {
+        return buffer.length;
+    }
+}
@@ -0,0 +1,147 @@
+package com.yourmod.playeractionlogger.util;
+
+import com.yourmod.playeractionlogger.PlayerActionLogger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs periodic tasks from a tick loop within a time budget. Each task runs
+ * every {@code period} ticks and states how much of the tick it expects to
+ * need. A due task only starts if that still fits in what's left of the
+ * scheduler's {@code budgetNanos}; otherwise it's deferred to the next tick,
+ * where the most overdue go first. The first task of a tick always runs, so
+ * nothing waits forever.
+ *
+ * <p>Every task keeps its own timings, see {@link #formatTimings()}. Not
+ * thread-safe, everything happens on the ticking thread.
+ */
+public class TickScheduler {
+    public static class Task {
+        public final String name;
+        public final int period;
+        public final long budgetNanos;
+        private final Runnable work;
+        private long nextTick;
+        private long lastRunTick = -1;
+        private long runs = 0;
+        private long totalNanos = 0;
+        private long maxNanos = 0;
+        private long lastNanos = 0;
+        private long deferrals = 0;
+        private long overruns = 0;
+        
+        Task(String name, int period, long budgetNanos, Runnable work, long firstTick) {
+            this.name = name;
+            this.period = period;
+            this.budgetNanos = budgetNanos;
+            this.work = work;
+            this.nextTick = firstTick;
+        }
+        
+        public long getRuns() { return runs; }
+        public long getTotalNanos() { return totalNanos; }
+        public long getMaxNanos() { return maxNanos; }
+        public long getLastNanos() { return lastNanos; }
+        public long getDeferrals() { return deferrals; }
+        // Runs that took longer than the task's own budget
+        public long getOverruns() { return overruns; }
+        
+        public long getAverageNanos() {
+            return runs == 0 ? 0 : totalNanos / runs;
+        }
+    }
+    
+    private final long budgetNanos;
+    private final List<Task> tasks = new ArrayList<>();
+    private long tick = 0;
+    private long lastTickNanos = 0;
+    private long maxTickNanos = 0;
+    private long overBudgetTicks = 0;
+    
+    public TickScheduler(long budgetNanos) {
+        this.budgetNanos = Math.max(0, budgetNanos);
+    }
+    
+    // Tasks added first win ties between equally due tasks
+    public Task add(String name, int period, long budgetNanos, Runnable work) {
+        Task task = new Task(name, Math.max(1, period), Math.max(0, budgetNanos), work, tick + 1);
+        tasks.add(task);
+        return task;
+    }
+    
+    public void tick() {
+        tick++;
+        long start = System.nanoTime();
+        boolean ranAny = false;
+        
+        while (true) {
+            Task next = null;
+            for (Task task : tasks) {
+                if (task.nextTick <= tick && task.lastRunTick != tick
+                        && (next == null || task.nextTick < next.nextTick)) {
+                    next = task;
+                }
+            }
+            if (next == null) break;
+            
+            if (ranAny && System.nanoTime() - start + next.budgetNanos > budgetNanos) {
+                // Still due, and more overdue than anything else next tick
+                for (Task task : tasks) {
+                    if (task.nextTick <= tick && task.lastRunTick != tick) {
+                        task.deferrals++;
+                    }
+                }
+                break;
+            }
+            run(next);
+            ranAny = true;
+        }
+        
+        lastTickNanos = System.nanoTime() - start;
+        if (lastTickNanos > maxTickNanos) maxTickNanos = lastTickNanos;
+        if (lastTickNanos > budgetNanos) overBudgetTicks++;
+    }
+    
+    private void run(Task task) {
+        long start = System.nanoTime();
+        try {
+            task.work.run();
+        } catch (RuntimeException e) {
+            PlayerActionLogger.LOGGER.error("Tick task " + task.name + " failed", e);
+        }
+        long elapsed = System.nanoTime() - start;
+        
+        task.lastRunTick = tick;
+        task.nextTick = tick + task.period;
+        task.runs++;
+        task.totalNanos += elapsed;
+        task.lastNanos = elapsed;
+        if (elapsed > task.maxNanos) task.maxNanos = elapsed;
+        if (elapsed > task.budgetNanos) task.overruns++;
+    }
+    
+    public List<Task> getTasks() {
+        return Collections.unmodifiableList(tasks);
+    }
+    
+    public long getBudgetNanos() { return budgetNanos; }
+    public long getTickCount() { return tick; }
+    public long getLastTickNanos() { return lastTickNanos; }
+    public long getMaxTickNanos() { return maxTickNanos; }
+    public long getOverBudgetTicks() { return overBudgetTicks; }
+    
+    // One line, for the log
+    public String formatTimings() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d ticks, max %.1fus, %d over the %.1fus budget",
+            tick, maxTickNanos / 1000.0, overBudgetTicks, budgetNanos / 1000.0));
+        for (Task task : tasks) {
+            sb.append(String.format(" | %s every %d: %d runs, avg %.1fus, max %.1fus, %d over %.1fus, %d deferred",
+                task.name, task.period, task.runs, task.getAverageNanos() / 1000.0,
+                task.maxNanos / 1000.0, task.overruns, task.budgetNanos / 1000.0, task.deferrals));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,116 @@
+package com.yourmod.playeractionlogger.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Set of block positions as bits, in 16x16x16 chunks of 64 longs each, so a
+ * position costs one bit once its chunk exists instead of a boxed object.
+ * The last chunk looked up is kept, neighbour checks mostly stay in it.
+ * Not thread-safe.
+ */
+public class VoxelSet {
+    private static final int CHUNK_WORDS = 4096 / 64;
+    
+    private final Map<Long, long[]> chunks = new HashMap<>();
+    private long lastKey = Long.MIN_VALUE;
+    private long[] lastChunk;
+    private int size = 0;
+    
+    // True if the position wasn't in the set yet
+    public boolean add(int x, int y, int z) {
+        long key = chunkKey(x >> 4, y >> 4, z >> 4);
+        long[] chunk = chunk(key);
+        if (chunk == null) {
+            chunk = new long[CHUNK_WORDS];
+            chunks.put(key, chunk);
+            lastKey = key;
+            lastChunk = chunk;
+        }
+        int bit = bitIndex(x, y, z);
+        long mask = 1L << bit;
+        if ((chunk[bit >>> 6] & mask) != 0) return false;
+        chunk[bit >>> 6] |= mask;
+        size++;
+        return true;
+    }
+    
+    public boolean contains(int x, int y, int z) {
+        long[] chunk = chunk(chunkKey(x >> 4, y >> 4, z >> 4));
+        if (chunk == null) return false;
+        int bit = bitIndex(x, y, z);
+        return (chunk[bit >>> 6] & 1L << bit) != 0;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public int getChunkCount() {
+        return chunks.size();
+    }
+    
+    public void clear() {
+        chunks.clear();
+        lastKey = Long.MIN_VALUE;
+        lastChunk = null;
+        size = 0;
+    }
+    
+    public void forEach(Visitor visitor) {
+        for (Map.Entry<Long, long[]> entry : chunks.entrySet()) {
+            long key = entry.getKey();
+            int baseX = unpackChunkX(key) << 4, baseY = unpackChunkY(key) << 4, baseZ = unpackChunkZ(key) << 4;
+            long[] chunk = entry.getValue();
+            for (int word = 0; word < CHUNK_WORDS; word++) {
+                long bits = chunk[word];
+                while (bits != 0) {
+                    int bit = word << 6 | Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    // Bit layout is y, z, x from high to low, see bitIndex
+                    visitor.accept(baseX + (bit & 15), baseY + (bit >>> 8), baseZ + (bit >>> 4 & 15));
+                }
+            }
+        }
+    }
+    
+    private long[] chunk(long key) {
+        if (key == lastKey) return lastChunk;
+        long[] chunk = chunks.get(key);
+        if (chunk != null) {
+            lastKey = key;
+            lastChunk = chunk;
+        }
+        return chunk;
+    }
+    
+    private static int bitIndex(int x, int y, int z) {
+        return (y & 15) << 8 | (z & 15) << 4 | (x & 15);
+    }
+    
+    // Same layout as ChunkSectionPos.asLong: 22 bits x, 22 bits z, 20 bits y
+    private static long chunkKey(int cx, int cy, int cz) {
+        return ((long) cx & 0x3FFFFF) << 42 | ((long) cz & 0x3FFFFF) << 20 | ((long) cy & 0xFFFFF);
+    }
+    
+    private static int unpackChunkX(long key) {
+        return (int) (key >> 42);
+    }
+    
+    private static int unpackChunkY(long key) {
+        return (int) (key << 44 >> 44);
+    }
+    
+    private static int unpackChunkZ(long key) {
+        return (int) (key << 22 >> 42);
+    }
+    
+    @FunctionalInterface
+    public interface Visitor {
+        void accept(int x, int y, int z);
+    }
+}
@@ -0,0 +1,149 @@
+package com.yourmod.playeractionlogger.util;
+
+import java.util.Arrays;
+
+/**
+ * Counts by int key in fixed time buckets kept in a ring, plus running
+ * session totals. Any window up to the ring's length is answered by walking
+ * its buckets, nothing is copied or cleared by hand: a bucket is reset when
+ * the ring comes back around to it. Windows longer than the ring are cut to
+ * it, the session totals cover the rest.
+ *
+ * <p>Buckets are numbered from the epoch, {@code time / bucketMillis}, so
+ * callers can report tumbling windows by remembering the last bucket they
+ * reported. Not thread-safe.
+ */
+public class WindowedCounter {
+    private final long bucketMillis;
+    private final long[] bucketNumbers;
+    private final IntLongCounterMap[] counts;
+    private final long[] totals;
+    private final IntLongCounterMap session = new IntLongCounterMap();
+    private long sessionTotal = 0;
+    private long sessionStart = -1;
+    
+    public WindowedCounter(long bucketMillis, int bucketCount) {
+        if (bucketMillis <= 0) throw new IllegalArgumentException("bucketMillis must be positive: " + bucketMillis);
+        if (bucketCount <= 0) throw new IllegalArgumentException("bucketCount must be positive: " + bucketCount);
+        this.bucketMillis = bucketMillis;
+        this.bucketNumbers = new long[bucketCount];
+        this.counts = new IntLongCounterMap[bucketCount];
+        this.totals = new long[bucketCount];
+        Arrays.fill(bucketNumbers, -1);
+    }
+    
+    public void increment(int key, long time) {
+        add(key, 1, time);
+    }
+    
+    public void add(int key, long delta, long time) {
+        long bucket = bucketOf(time);
+        int slot = slot(bucket);
+        if (bucketNumbers[slot] != bucket) {
+            // The ring came around, whatever was here is older than any window
+            if (counts[slot] == null) {
+                counts[slot] = new IntLongCounterMap();
+            } else {
+                counts[slot].clear();
+            }
+            totals[slot] = 0;
+            bucketNumbers[slot] = bucket;
+        }
+        counts[slot].add(key, delta);
+        totals[slot] += delta;
+        
+        session.add(key, delta);
+        sessionTotal += delta;
+        if (sessionStart < 0) sessionStart = time;
+    }
+    
+    public long bucketOf(long time) {
+        return Math.floorDiv(time, bucketMillis);
+    }
+    
+    // Sum over buckets [fromBucket, toBucket)
+    public long total(long fromBucket, long toBucket) {
+        long total = 0;
+        for (long bucket = clampFrom(fromBucket, toBucket); bucket < toBucket; bucket++) {
+            int slot = slot(bucket);
+            if (bucketNumbers[slot] == bucket) total += totals[slot];
+        }
+        return total;
+    }
+    
+    public long count(int key, long fromBucket, long toBucket) {
+        long total = 0;
+        for (long bucket = clampFrom(fromBucket, toBucket); bucket < toBucket; bucket++) {
+            int slot = slot(bucket);
+            if (bucketNumbers[slot] == bucket) total += counts[slot].get(key);
+        }
+        return total;
+    }
+    
+    // Adds the per-key counts of buckets [fromBucket, toBucket) into the given map
+    public IntLongCounterMap collect(long fromBucket, long toBucket, IntLongCounterMap into) {
+        for (long bucket = clampFrom(fromBucket, toBucket); bucket < toBucket; bucket++) {
+            int slot = slot(bucket);
+            if (bucketNumbers[slot] == bucket && totals[slot] != 0) {
+                counts[slot].forEach(into::add);
+            }
+        }
+        return into;
+    }
+    
+    // Sliding window ending at time, the bucket holding time included
+    public long totalInLast(long windowMillis, long time) {
+        long to = bucketOf(time) + 1;
+        return total(to - windowBuckets(windowMillis), to);
+    }
+    
+    public long countInLast(int key, long windowMillis, long time) {
+        long to = bucketOf(time) + 1;
+        return count(key, to - windowBuckets(windowMillis), to);
+    }
+    
+    /**
+     * Count per minute over the window, or over the session when it is
+     * shorter than the window, so a fresh session doesn't read as slow. A
+     * window longer than the ring is cut to it, for the count and the span.
+     */
+    public double ratePerMinute(long windowMillis, long time) {
+        if (sessionStart < 0) return 0;
+        long window = Math.min(windowBuckets(windowMillis) * bucketMillis, getSpanMillis());
+        long span = Math.min(window, time - sessionStart + bucketMillis);
+        return totalInLast(windowMillis, time) * 60000.0 / Math.max(span, bucketMillis);
+    }
+    
+    // Counts since the last reset, not limited by the ring
+    public IntLongCounterMap getSession() {
+        return session;
+    }
+    
+    public long getSessionTotal() {
+        return sessionTotal;
+    }
+    
+    // Longest window the ring answers for
+    public long getSpanMillis() {
+        return bucketMillis * bucketNumbers.length;
+    }
+    
+    public void reset() {
+        Arrays.fill(bucketNumbers, -1);
+        session.clear();
+        sessionTotal = 0;
+        sessionStart = -1;
+    }
+    
+    private long windowBuckets(long windowMillis) {
+        return Math.max(1, (windowMillis + bucketMillis - 1) / bucketMillis);
+    }
+    
+    private long clampFrom(long fromBucket, long toBucket) {
+        return Math.max(fromBucket, toBucket - bucketNumbers.length);
+    }
+    
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) bucketNumbers.length);
+    }
+}
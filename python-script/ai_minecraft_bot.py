@@ -189,6 +189,13 @@ class LogFileWatcher:
         if not os.path.exists(self.directory):
             return None
         
+        # Segmented logs: <player>/latest holds the name of the active segment
+        for entry in os.listdir(self.directory):
+            pointer = os.path.join(self.directory, entry, 'latest')
+            if os.path.isfile(pointer):
+                with open(pointer, 'r', encoding='utf-8') as f:
+                    return os.path.join(self.directory, entry, f.read().strip())
+        
         for file in os.listdir(self.directory):
             if file.endswith('.log'):
                 return os.path.join(self.directory, file)
@@ -207,12 +214,15 @@ class LogFileWatcher:
     
     def read_file(self):
         """Read log file content"""
+        # Follow the active segment when the mod rolls over to a new one
+        self.log_file = self.find_log_file() or self.log_file
         if not self.log_file or not os.path.exists(self.log_file):
             return ""
         
         try:
             with open(self.log_file, 'r', encoding='utf-8', errors='ignore') as f:
-                return f.read()
+                # Segments are preallocated, the unwritten tail is NUL bytes
+                return f.read().split('\x00', 1)[0]
         except Exception as e:
             print(f"[ERROR] Error reading file: {e}")
             return ""